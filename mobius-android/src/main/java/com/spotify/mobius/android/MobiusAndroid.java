@@ -22,6 +22,7 @@ package com.spotify.mobius.android;
 import com.spotify.mobius.Mobius;
 import com.spotify.mobius.MobiusLoop;
 import com.spotify.mobius.android.runners.MainThreadWorkRunner;
+import java.util.concurrent.TimeUnit;
 
 public final class MobiusAndroid {
   private MobiusAndroid() {
@@ -32,4 +33,18 @@ public final class MobiusAndroid {
       MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel) {
     return Mobius.controller(loopFactory, defaultModel, MainThreadWorkRunner.create());
   }
+
+  /**
+   * Create a controller that renders on the main thread, at most once per {@code
+   * minRenderInterval}. See {@link Mobius#controller(MobiusLoop.Factory, Object,
+   * com.spotify.mobius.runners.WorkRunner, long, TimeUnit)}.
+   */
+  public static <M, E, F> MobiusLoop.Controller<M, E> controller(
+      MobiusLoop.Factory<M, E, F> loopFactory,
+      M defaultModel,
+      long minRenderInterval,
+      TimeUnit unit) {
+    return Mobius.controller(
+        loopFactory, defaultModel, MainThreadWorkRunner.create(), minRenderInterval, unit);
+  }
 }
@@ -0,0 +1,48 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.functions.Consumer;
+import javax.annotation.Nonnull;
+
+/** A minimal loop definition, where the model counts the events it has received. */
+final class Counter {
+
+  static final Integer INCREMENT = 1;
+
+  static final Update<Long, Integer, Object> UPDATE = (model, event) -> Next.next(model + event);
+
+  static final Connectable<Object, Integer> NO_EFFECTS =
+      new Connectable<Object, Integer>() {
+        @Nonnull
+        @Override
+        public Connection<Object> connect(Consumer<Integer> output) {
+          return new Connection<Object>() {
+            @Override
+            public void accept(Object value) {}
+
+            @Override
+            public void dispose() {}
+          };
+        }
+      };
+
+  private Counter() {}
+}
@@ -0,0 +1,93 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.RoundTrip.Event;
+import com.spotify.mobius.RoundTrip.Fetch;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full round-trip through the loop: an event that leads to an effect, which is routed
+ * by an {@link EffectRouterBuilder} router to a function whose result event updates the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EffectRoundTripBenchmark {
+
+  /** The runner type used for both events and effects. */
+  @Param public RunnerType runners;
+
+  private MobiusLoop<Long, Event, Object> loop;
+  private LatestModel latestModel;
+  private long requested;
+
+  @Setup
+  public void setUp() {
+    final WorkRunner eventRunner = runners.create();
+    final WorkRunner effectRunner = runners.create();
+
+    Connectable<Object, Event> router =
+        Mobius.<Object, Event>effectRouter()
+            .addFunction(Fetch.class, fetch -> Event.RESPONSE)
+            .build();
+
+    loop =
+        Mobius.loop(RoundTrip.UPDATE, router)
+            .eventRunner(() -> eventRunner)
+            .effectRunner(() -> effectRunner)
+            .startFrom(0L);
+
+    latestModel = new LatestModel();
+    loop.observe(latestModel);
+    requested = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public long roundTrip() {
+    loop.dispatchEvent(Event.REQUEST);
+
+    requested++;
+    latestModel.awaitAtLeast(requested);
+
+    return latestModel.get();
+  }
+}
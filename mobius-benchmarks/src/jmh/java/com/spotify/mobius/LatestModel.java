@@ -0,0 +1,62 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A model observer for benchmarks that count events in a {@code long} model, which lets the
+ * benchmark thread wait for the loop to have processed the events it dispatched.
+ */
+final class LatestModel implements Consumer<Long> {
+
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private volatile long latest;
+
+  @Override
+  public void accept(Long model) {
+    latest = model;
+  }
+
+  long get() {
+    return latest;
+  }
+
+  /**
+   * Busy-waits until the model has reached at least the given value. Spinning rather than parking
+   * keeps the wake-up latency of the benchmark thread out of the measurement.
+   */
+  void awaitAtLeast(long value) {
+    if (latest >= value) {
+      return;
+    }
+
+    long deadline = System.nanoTime() + TIMEOUT_NANOS;
+
+    while (latest < value) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException(
+            "timed out waiting for model " + value + ", latest was " + latest);
+      }
+    }
+  }
+}
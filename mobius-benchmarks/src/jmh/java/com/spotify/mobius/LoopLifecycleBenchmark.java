@@ -0,0 +1,95 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.LoopGroup;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of starting a loop and disposing it again, which is paid for instance every
+ * time an Android screen with a loop is recreated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopLifecycleBenchmark {
+
+  public enum Runners {
+    /** The builder's default runners, which start new threads for every loop. */
+    DEFAULT,
+    /** Immediate runners for both events and effects, so no threads are involved. */
+    IMMEDIATE,
+    /** Runners from a {@link LoopGroup}, whose threads are shared by all loops. */
+    LOOP_GROUP
+  }
+
+  @Param public Runners runners;
+
+  private MobiusLoop.Builder<Long, Integer, Object> builder;
+  private LoopGroup loopGroup;
+
+  @Setup
+  public void setUp() {
+    builder = Mobius.loop(Counter.UPDATE, Counter.NO_EFFECTS);
+
+    switch (runners) {
+      case DEFAULT:
+        break;
+      case IMMEDIATE:
+        builder = builder.eventRunner(WorkRunners::immediate).effectRunner(WorkRunners::immediate);
+        break;
+      case LOOP_GROUP:
+        loopGroup = LoopGroup.create(2);
+        builder = builder.loopGroup(loopGroup);
+        break;
+      default:
+        throw new IllegalArgumentException(runners.toString());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (loopGroup != null) {
+      loopGroup.dispose();
+      loopGroup = null;
+    }
+  }
+
+  @Benchmark
+  public void startAndDispose() {
+    builder.startFrom(0L).dispose();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many events per second a loop can process, when a single thread dispatches them as
+ * fast as it can. Each operation dispatches a burst of events and waits until the model reflects
+ * all of them, so the score and allocation numbers are per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(LoopThroughputBenchmark.EVENTS_PER_OPERATION)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopThroughputBenchmark {
+
+  static final int EVENTS_PER_OPERATION = 1000;
+
+  @Param public RunnerType eventRunner;
+
+  private MobiusLoop<Long, Integer, Object> loop;
+  private LatestModel latestModel;
+  private long dispatched;
+
+  @Setup
+  public void setUp() {
+    final WorkRunner runner = eventRunner.create();
+
+    loop =
+        Mobius.loop(Counter.UPDATE, Counter.NO_EFFECTS).eventRunner(() -> runner).startFrom(0L);
+
+    latestModel = new LatestModel();
+    loop.observe(latestModel);
+    dispatched = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public void dispatchEvents() {
+    for (int i = 0; i < EVENTS_PER_OPERATION; i++) {
+      loop.dispatchEvent(Counter.INCREMENT);
+    }
+
+    dispatched += EVENTS_PER_OPERATION;
+    latestModel.awaitAtLeast(dispatched);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares posting one task per message to the runner with draining queued messages in batches, on
+ * a runner that hands the work over to another thread. This is the dispatcher that sits between
+ * {@link MobiusLoop#dispatchEvent(Object)} and the event processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MessageDispatcherBenchmark.MESSAGES_PER_OPERATION)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDispatcherBenchmark {
+
+  static final int MESSAGES_PER_OPERATION = 1000;
+
+  public enum Dispatch {
+    PER_MESSAGE,
+    DRAINING
+  }
+
+  @Param public Dispatch dispatch;
+
+  private MessageDispatcher<Integer> dispatcher;
+  private LatestModel received;
+  private long sent;
+
+  @Setup
+  public void setUp() {
+    WorkRunner runner = WorkRunners.singleThread();
+    received = new LatestModel();
+
+    Consumer<Integer> counter =
+        new Consumer<Integer>() {
+          private long count;
+
+          @Override
+          public void accept(Integer value) {
+            received.accept(++count);
+          }
+        };
+
+    dispatcher =
+        dispatch == Dispatch.DRAINING
+            ? MessageDispatcher.draining(runner, counter, MobiusLoop.DEFAULT_EVENT_BATCH_SIZE)
+            : new MessageDispatcher<>(runner, counter);
+    sent = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    // also disposes the runner
+    dispatcher.dispose();
+  }
+
+  @Benchmark
+  public void dispatchMessages() {
+    for (int i = 0; i < MESSAGES_PER_OPERATION; i++) {
+      dispatcher.accept(Counter.INCREMENT);
+    }
+
+    sent += MESSAGES_PER_OPERATION;
+    received.awaitAtLeast(sent);
+  }
+}
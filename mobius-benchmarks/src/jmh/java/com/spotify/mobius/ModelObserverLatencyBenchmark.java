@@ -0,0 +1,83 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time from {@link MobiusLoop#dispatchEvent(Object)} until a model observer sees the
+ * resulting model, for a single event dispatched to an idle loop. Sampling gives the latency
+ * distribution rather than just the average, since the interesting regressions are often in the
+ * tail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelObserverLatencyBenchmark {
+
+  @Param public RunnerType eventRunner;
+
+  private MobiusLoop<Long, Integer, Object> loop;
+  private LatestModel latestModel;
+  private long dispatched;
+
+  @Setup
+  public void setUp() {
+    final WorkRunner runner = eventRunner.create();
+
+    loop =
+        Mobius.loop(Counter.UPDATE, Counter.NO_EFFECTS).eventRunner(() -> runner).startFrom(0L);
+
+    latestModel = new LatestModel();
+    loop.observe(latestModel);
+    dispatched = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public long dispatchAndObserve() {
+    loop.dispatchEvent(Counter.INCREMENT);
+
+    dispatched++;
+    latestModel.awaitAtLeast(dispatched);
+
+    return latestModel.get();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of creating the {@link Next} instances that update functions return. Run with
+ * the gc profiler, {@code gc.alloc.rate.norm} shows the bytes allocated per Next, including the
+ * set that the caller builds for the effects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NextCreationBenchmark {
+
+  private final Long model = 17L;
+  private final String effect1 = "effect1";
+  private final String effect2 = "effect2";
+  private final String effect3 = "effect3";
+
+  @Benchmark
+  public Next<Long, String> oneEffect() {
+    return Next.next(model, effect1);
+  }
+
+  @Benchmark
+  public Next<Long, String> oneEffectInSet() {
+    return Next.next(model, effects(effect1));
+  }
+
+  @Benchmark
+  public Next<Long, String> twoEffects() {
+    return Next.next(model, effects(effect1, effect2));
+  }
+
+  @Benchmark
+  public Next<Long, String> threeEffects() {
+    return Next.next(model, effects(effect1, effect2, effect3));
+  }
+
+  @Benchmark
+  public Next<Long, String> threeOrderedEffects() {
+    return Next.next(model, Effects.ordered(effect1, effect2, effect3));
+  }
+
+  @Benchmark
+  public Next<Long, String> threeOrderedDistinctEffects() {
+    return Next.next(model, Effects.orderedDistinct(effect1, effect2, effect3));
+  }
+
+  @Benchmark
+  public Next<Long, String> dispatchOneEffect() {
+    return Next.dispatch(effect1);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the internal cost of processing an event that leaves the model unchanged and has no
+ * effects. Events are processed on the dispatching thread, so there is no hand-over cost, and the
+ * event itself is a shared constant. That leaves only what the loop itself does per event, which
+ * should show up as (close to) zero bytes in {@code gc.alloc.rate.norm}: the event queue allocates
+ * one array chunk for every {@link UnboundedMessageQueue#CHUNK_SIZE} events, and nothing else is
+ * allocated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoChangeEventBenchmark {
+
+  private MobiusLoop<Long, Integer, Object> loop;
+
+  @Setup
+  public void setUp() {
+    Update<Long, Integer, Object> update = (model, event) -> Next.noChange();
+
+    loop =
+        Mobius.loop(update, Counter.NO_EFFECTS)
+            .eventRunner(WorkRunners::immediate)
+            .effectRunner(WorkRunners::immediate)
+            .startFrom(0L);
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public void dispatchEvent() {
+    loop.dispatchEvent(Counter.INCREMENT);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+
+/**
+ * A loop definition where each {@link Event#REQUEST} leads to a {@link Fetch} effect, whose handler
+ * responds with a {@link Event#RESPONSE}. The model counts the responses.
+ */
+final class RoundTrip {
+
+  enum Event {
+    REQUEST,
+    RESPONSE
+  }
+
+  static final class Fetch {
+    static final Fetch INSTANCE = new Fetch();
+
+    private Fetch() {}
+  }
+
+  static final Update<Long, Event, Object> UPDATE =
+      (model, event) -> {
+        switch (event) {
+          case REQUEST:
+            return Next.dispatch(effects(Fetch.INSTANCE));
+          case RESPONSE:
+            return Next.next(model + 1);
+          default:
+            throw new IllegalArgumentException(event.toString());
+        }
+      };
+
+  private RoundTrip() {}
+}
@@ -0,0 +1,44 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+
+/** The kinds of {@link WorkRunner} that benchmarks compare loops on. */
+enum RunnerType {
+  /** {@link WorkRunners#immediate()}, running all work on the dispatching thread. */
+  IMMEDIATE {
+    @Override
+    WorkRunner create() {
+      return WorkRunners.immediate();
+    }
+  },
+
+  /** {@link WorkRunners#singleThread()}, handing all work over to a dedicated thread. */
+  SINGLE_THREAD {
+    @Override
+    WorkRunner create() {
+      return WorkRunners.singleThread();
+    }
+  };
+
+  abstract WorkRunner create();
+}
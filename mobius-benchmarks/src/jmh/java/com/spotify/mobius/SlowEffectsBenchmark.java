@@ -0,0 +1,113 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import com.spotify.mobius.RoundTrip.Event;
+import com.spotify.mobius.RoundTrip.Fetch;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serial and thread-safe effect handlers when handling an effect blocks the handling
+ * thread for a while, as it does for I/O. Effects run on a cached thread pool, so the handlers are
+ * only limited by the {@link EffectHandlerOptions} they are registered with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(SlowEffectsBenchmark.EFFECTS_PER_OPERATION)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlowEffectsBenchmark {
+
+  static final int EFFECTS_PER_OPERATION = 16;
+
+  public enum Handler {
+    SERIAL,
+    THREAD_SAFE
+  }
+
+  @Param public Handler handler;
+
+  @Param({"1"})
+  public long effectMillis;
+
+  private MobiusLoop<Long, Event, Object> loop;
+  private LatestModel latestModel;
+  private long requested;
+
+  @Setup
+  public void setUp() {
+    final WorkRunner effectRunner = WorkRunners.cachedThreadPool();
+
+    Connectable<Object, Event> router =
+        Mobius.<Object, Event>effectRouter()
+            .addFunction(
+                Fetch.class,
+                fetch -> {
+                  try {
+                    Thread.sleep(effectMillis);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  return Event.RESPONSE;
+                },
+                handler == Handler.THREAD_SAFE
+                    ? EffectHandlerOptions.threadSafe()
+                    : EffectHandlerOptions.serial())
+            .build();
+
+    loop = Mobius.loop(RoundTrip.UPDATE, router).effectRunner(() -> effectRunner).startFrom(0L);
+
+    latestModel = new LatestModel();
+    loop.observe(latestModel);
+    requested = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public void handleEffects() {
+    for (int i = 0; i < EFFECTS_PER_OPERATION; i++) {
+      loop.dispatchEvent(Event.REQUEST);
+    }
+
+    requested += EFFECTS_PER_OPERATION;
+    latestModel.awaitAtLeast(requested);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import java.util.Collection;
+
+/**
+ * A {@link Connection} that can receive several values in a single call.
+ *
+ * <p>If the effect handler of a {@link MobiusLoop} returns a batch connection, the loop will hand
+ * all effects of each {@link Next} or {@link First} to it in one call to {@link
+ * #acceptBatch(Collection)}, in a single task on the effect runner, instead of posting a separate
+ * task for each effect. This allows effect handlers that write to a database or a network socket
+ * to coalesce the effects into a single round-trip. Plain connections keep receiving effects one
+ * at a time through {@link #accept(Object)}.
+ *
+ * <p>Like values sent to {@link #accept(Object)}, batches may arrive from different threads, so
+ * implementations are expected to be thread-safe.
+ */
+public interface BatchConnection<I> extends Connection<I> {
+
+  /**
+   * Send a number of values to this connection at once. The collection is never empty, and it is
+   * immutable, so implementations may keep a reference to it. Its iteration order is the order in
+   * which the values should be handled, if that matters to the connection.
+   *
+   * @param values the values that should be sent to the connection
+   */
+  void acceptBatch(Collection<I> values);
+}
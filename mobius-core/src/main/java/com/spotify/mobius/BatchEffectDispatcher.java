@@ -0,0 +1,78 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.internal_util.ImmutableUtil;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.Collection;
+import javax.annotation.Nonnull;
+
+/**
+ * Dispatches effects to a {@link BatchConnection} on the effect runner. Each batch of effects is
+ * posted as a single task, and handed to the connection in a single call.
+ *
+ * <p>Since this is itself a batch connection, the {@link EventProcessor} sends it all effects of a
+ * {@link Next} or {@link First} together.
+ */
+class BatchEffectDispatcher<F> implements BatchConnection<F> {
+
+  @Nonnull private final MessageDispatcher<Collection<F>> dispatcher;
+
+  BatchEffectDispatcher(WorkRunner effectRunner, final BatchConnection<F> connection) {
+    checkNotNull(connection);
+
+    this.dispatcher =
+        new MessageDispatcher<>(
+            effectRunner,
+            new Consumer<Collection<F>>() {
+              @Override
+              public void accept(Collection<F> effects) {
+                try {
+                  connection.acceptBatch(effects);
+                } catch (Throwable t) {
+                  throw new ConnectionException(effects, t);
+                }
+              }
+            });
+  }
+
+  @Override
+  public void accept(F effect) {
+    dispatcher.accept(ImmutableUtil.singletonSet(effect));
+  }
+
+  @Override
+  public void acceptBatch(Collection<F> effects) {
+    dispatcher.accept(checkNotNull(effects));
+  }
+
+  /** @return the dispatcher that posts batches of effects to the effect runner */
+  MessageDispatcher<Collection<F>> dispatcher() {
+    return dispatcher;
+  }
+
+  @Override
+  public void dispose() {
+    dispatcher.dispose();
+  }
+}
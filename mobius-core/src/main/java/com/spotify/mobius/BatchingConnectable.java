@@ -0,0 +1,240 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.BiConsumer;
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A connectable that buffers the values it receives and hands them to a consumer in batches. A
+ * batch is handed over when it reaches the maximum size, when the maximum delay has passed since
+ * the first value in it was received, or when the connection is disposed, whichever happens first.
+ *
+ * <p>The consumer is invoked on a scheduler that isn't owned by the connectable, and that may be
+ * shared with any number of other connections. Each connection still hands its batches to the
+ * consumer one at a time, in the order the values were received, and slow consumers don't hold up
+ * the threads sending values to the connection.
+ *
+ * <p>Exceptions thrown by the consumer are passed to the error handler, once for each value in the
+ * failed batch. Since nobody is waiting for the result of a batch, exceptions thrown by the error
+ * handler are passed to the uncaught exception handler of the scheduler's thread.
+ */
+class BatchingConnectable<I, O> implements ClassRoutingConnectable.ErrorReportingConnectable<I, O> {
+
+  private final int maxBatchSize;
+  private final long maxDelayMs;
+  private final ScheduledExecutorService scheduler;
+  private final Consumer<List<I>> consumer;
+
+  BatchingConnectable(
+      int maxBatchSize,
+      long maxDelayMs,
+      ScheduledExecutorService scheduler,
+      Consumer<List<I>> consumer) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1, was: " + maxBatchSize);
+    }
+    if (maxDelayMs < 0) {
+      throw new IllegalArgumentException("maxDelayMs must not be negative, was: " + maxDelayMs);
+    }
+
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayMs = maxDelayMs;
+    this.scheduler = checkNotNull(scheduler);
+    this.consumer = checkNotNull(consumer);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<I> connect(Consumer<O> output) throws ConnectionLimitExceededException {
+    return connect(
+        output,
+        new BiConsumer<I, Throwable>() {
+          @Override
+          public void accept(I value, Throwable throwable) {
+            throw new ConnectionException(value, throwable);
+          }
+        });
+  }
+
+  @Nonnull
+  @Override
+  public Connection<I> connect(
+      Consumer<O> output, BiConsumer<? super I, Throwable> errorHandler) {
+    return new BatchingConnection(checkNotNull(errorHandler));
+  }
+
+  private class BatchingConnection implements Connection<I> {
+    private final BiConsumer<? super I, Throwable> errorHandler;
+    private final Object lock = new Object();
+
+    private final Runnable timedFlush =
+        new Runnable() {
+          @Override
+          public void run() {
+            synchronized (lock) {
+              if (!buffer.isEmpty()) {
+                flush(takeBuffer());
+              }
+            }
+          }
+        };
+
+    private final Runnable deliverBatches =
+        new Runnable() {
+          @Override
+          public void run() {
+            boolean drained = false;
+
+            try {
+              while (true) {
+                List<I> batch;
+
+                synchronized (lock) {
+                  batch = batches.poll();
+
+                  if (batch == null) {
+                    delivering = false;
+                    drained = true;
+                    return;
+                  }
+                }
+
+                deliver(batch);
+              }
+            } finally {
+              if (!drained) {
+                // the consumer threw an Error; hand the remaining batches to a new task, so that
+                // the connection doesn't stop delivering
+                synchronized (lock) {
+                  delivering = false;
+
+                  if (!batches.isEmpty()) {
+                    scheduler.execute(deliverBatches);
+                    delivering = true;
+                  }
+                }
+              }
+            }
+          }
+        };
+
+    // the fields below are guarded by the lock
+    private List<I> buffer = new ArrayList<>();
+    @Nullable private ScheduledFuture<?> scheduledFlush;
+    private final Queue<List<I>> batches = new ArrayDeque<>();
+    private boolean delivering;
+    private boolean disposed;
+
+    private BatchingConnection(BiConsumer<? super I, Throwable> errorHandler) {
+      this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public void accept(I value) {
+      synchronized (lock) {
+        if (disposed) {
+          return;
+        }
+
+        buffer.add(value);
+
+        if (buffer.size() >= maxBatchSize) {
+          flush(takeBuffer());
+        } else if (buffer.size() == 1) {
+          scheduledFlush = scheduler.schedule(timedFlush, maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    @Override
+    public void dispose() {
+      synchronized (lock) {
+        if (disposed) {
+          return;
+        }
+
+        disposed = true;
+
+        if (!buffer.isEmpty()) {
+          flush(takeBuffer());
+        }
+      }
+    }
+
+    // must be called while holding the lock
+    private List<I> takeBuffer() {
+      List<I> batch = buffer;
+      buffer = new ArrayList<>();
+
+      if (scheduledFlush != null) {
+        scheduledFlush.cancel(false);
+        scheduledFlush = null;
+      }
+
+      return batch;
+    }
+
+    // must be called while holding the lock, so that batches are queued in order
+    private void flush(List<I> batch) {
+      batches.add(batch);
+
+      // only one task at a time delivers the batches of this connection, even if the scheduler
+      // has several threads
+      if (!delivering) {
+        scheduler.execute(deliverBatches);
+        delivering = true;
+      }
+    }
+
+    private void deliver(List<I> batch) {
+      try {
+        consumer.accept(Collections.unmodifiableList(batch));
+      } catch (Exception e) {
+        for (I value : batch) {
+          reportError(value, e);
+        }
+      }
+    }
+
+    private void reportError(I value, Throwable throwable) {
+      try {
+        errorHandler.accept(value, throwable);
+      } catch (Throwable t) {
+        // a scheduler would keep the exception in a future that nobody looks at, so make sure the
+        // failure isn't silently dropped
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+      }
+    }
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageQueue} that holds at most a fixed number of messages, and handles messages that
+ * don't fit according to an {@link OverflowPolicy}.
+ *
+ * <p>Offering a message only costs a CAS on the size counter as long as the queue isn't full. The
+ * lock is used by producers waiting for room with {@link OverflowPolicy#block()}, and by producers
+ * replacing pending messages with {@link OverflowPolicy#dropOldest()} or {@link
+ * OverflowPolicy#conflateByKey(ConflationKey)}. With the latter two policies, the consumer polls
+ * under the same lock, so that there is still only a single thread at a time removing messages
+ * from the queue.
+ */
+class BoundedMessageQueue<M> implements MessageQueue<M> {
+
+  private final Queue<M> queue = new ConcurrentLinkedQueue<>();
+  private final int capacity;
+  @Nonnull private final OverflowPolicy<? super M> policy;
+
+  // concurrency note: size is incremented before a message is added to the queue, and decremented
+  // after one is removed, so it is never lower than the number of queued messages.
+  private final AtomicInteger size = new AtomicInteger(0);
+  private final AtomicLong dropped = new AtomicLong(0);
+  private final AtomicLong rejected = new AtomicLong(0);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  private final AtomicInteger waitingProducers = new AtomicInteger(0);
+  private final boolean replacesPending;
+  private volatile boolean disposed;
+
+  BoundedMessageQueue(int capacity, OverflowPolicy<? super M> policy) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1, was: " + capacity);
+    }
+
+    this.capacity = capacity;
+    this.policy = checkNotNull(policy);
+    this.replacesPending =
+        policy.kind() == OverflowPolicy.Kind.DROP_OLDEST
+            || policy.kind() == OverflowPolicy.Kind.CONFLATE_BY_KEY;
+  }
+
+  @Override
+  public void offer(M message, boolean mayBlock) {
+    checkNotNull(message);
+
+    if (disposed) {
+      dropped.incrementAndGet();
+      MessageEnvelope.discard(message);
+      return;
+    }
+
+    if (tryReserve()) {
+      queue.offer(message);
+      return;
+    }
+
+    switch (policy.kind()) {
+      case BLOCK:
+        if (!mayBlock) {
+          rejected.incrementAndGet();
+          throw new EventQueueFullException(
+              MessageEnvelope.unwrap(message),
+              "event queue is full (capacity "
+                  + capacity
+                  + ") and waiting for room would deadlock the loop, rejected: "
+                  + message);
+        }
+
+        if (awaitRoom(message)) {
+          queue.offer(message);
+        } else {
+          dropped.incrementAndGet();
+          MessageEnvelope.discard(message);
+        }
+        break;
+
+      case DROP_OLDEST:
+        lock.lock();
+        try {
+          replaceOldest(message);
+        } finally {
+          lock.unlock();
+        }
+        break;
+
+      case DROP_NEWEST:
+        dropped.incrementAndGet();
+        MessageEnvelope.discard(message);
+        break;
+
+      case REJECT:
+        rejected.incrementAndGet();
+        throw new EventQueueFullException(
+            MessageEnvelope.unwrap(message),
+            "event queue is full (capacity " + capacity + "), rejected: " + message);
+
+      case CONFLATE_BY_KEY:
+        lock.lock();
+        try {
+          if (!replaceSameKey(message)) {
+            replaceOldest(message);
+          }
+        } finally {
+          lock.unlock();
+        }
+        break;
+
+      default:
+        throw new IllegalStateException("unknown overflow policy: " + policy);
+    }
+  }
+
+  private boolean tryReserve() {
+    while (true) {
+      int current = size.get();
+
+      if (current >= capacity) {
+        return false;
+      }
+
+      if (size.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** @return true if room was reserved, false if the queue was disposed while waiting */
+  private boolean awaitRoom(M message) {
+    lock.lock();
+    try {
+      waitingProducers.incrementAndGet();
+
+      // check for disposal first, since disposing the queue makes room by discarding its messages
+      while (!disposed) {
+        if (tryReserve()) {
+          return true;
+        }
+
+        notFull.await();
+      }
+
+      return false;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rejected.incrementAndGet();
+      throw new EventQueueFullException(
+          MessageEnvelope.unwrap(message),
+          "interrupted while waiting for room in the event queue, rejected: " + message);
+
+    } finally {
+      waitingProducers.decrementAndGet();
+      lock.unlock();
+    }
+  }
+
+  // must be called holding the lock
+  private void replaceOldest(M message) {
+    while (true) {
+      M oldest = queue.poll();
+
+      if (oldest != null) {
+        // the new message takes over the slot of the removed one, so the size stays the same
+        dropped.incrementAndGet();
+        queue.offer(message);
+        MessageEnvelope.discard(oldest);
+        return;
+      }
+
+      // the consumer emptied the queue between our attempt to reserve room and the poll
+      if (tryReserve()) {
+        queue.offer(message);
+        return;
+      }
+    }
+  }
+
+  // must be called holding the lock
+  private boolean replaceSameKey(M message) {
+    Object key = conflationKeyOf(message);
+
+    if (key == null) {
+      return false;
+    }
+
+    for (M pending : queue) {
+      if (key.equals(conflationKeyOf(pending)) && queue.remove(pending)) {
+        dropped.incrementAndGet();
+        queue.offer(message);
+        MessageEnvelope.discard(pending);
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Nullable
+  private Object conflationKeyOf(M message) {
+    //noinspection unchecked
+    return policy.conflationKeyOf((M) MessageEnvelope.unwrap(message));
+  }
+
+  @Nullable
+  @Override
+  public M poll() {
+    if (!replacesPending) {
+      return pollUnlocked();
+    }
+
+    lock.lock();
+    try {
+      return pollUnlocked();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Nullable
+  private M pollUnlocked() {
+    M message = queue.poll();
+
+    if (message != null) {
+      size.decrementAndGet();
+
+      if (waitingProducers.get() > 0) {
+        signalNotFull();
+      }
+    }
+
+    return message;
+  }
+
+  private void signalNotFull() {
+    lock.lock();
+    try {
+      notFull.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  @Override
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public long rejectedCount() {
+    return rejected.get();
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+
+    lock.lock();
+    try {
+      // pending messages are counted as dropped, like the messages of producers released below, so
+      // that the counts still add up to the number of messages offered.
+      M message;
+      while ((message = pollUnlocked()) != null) {
+        dropped.incrementAndGet();
+        MessageEnvelope.discard(message);
+      }
+
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
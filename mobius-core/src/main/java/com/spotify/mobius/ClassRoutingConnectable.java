@@ -0,0 +1,196 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.functions.BiConsumer;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.internal_util.ImmutableUtil;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+
+/**
+ * A connectable that sends each value to the one sub-connectable registered for a supertype of its
+ * class, and throws an {@link UnknownEffectException} for values that no sub-connectable handles.
+ *
+ * <p>The handled classes must not be assignable to each other, so there is at most one route for
+ * any class. The route for a class is looked up the first time a value of that class is seen, and
+ * cached; after that, routing a value only costs a map lookup on its class, regardless of how many
+ * routes there are. Classes without a route are cached too, so that unknown values are detected by
+ * the same lookup.
+ *
+ * <p>Exceptions thrown by a sub-connection are passed to the error handler together with the value
+ * that caused them. Unless the route is declared thread-safe, its sub-connection only receives one
+ * value at a time, through a {@link SerialConnection}, while values for other routes can be handled
+ * concurrently. Routes with a concurrency limit or a runner of their own get a {@link
+ * LimitedConcurrencyConnection} instead.
+ */
+class ClassRoutingConnectable<F, E> implements Connectable<F, E> {
+
+  private static final int UNHANDLED = -1;
+
+  private final List<Route<? extends F, E>> routes;
+  private final BiConsumer<F, Throwable> errorHandler;
+  private final ConcurrentMap<Class<?>, Integer> routeIndexByClass = new ConcurrentHashMap<>();
+
+  ClassRoutingConnectable(
+      List<Route<? extends F, E>> routes, BiConsumer<F, Throwable> errorHandler) {
+    this.routes = ImmutableUtil.immutableList(routes);
+    this.errorHandler = checkNotNull(errorHandler);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
+    checkNotNull(output);
+
+    final List<Connection<F>> connections = new ArrayList<>(routes.size());
+
+    for (Route<? extends F, E> route : routes) {
+      connections.add(route.connect(output, errorHandler));
+    }
+
+    return new Connection<F>() {
+      @Override
+      public void accept(F value) {
+        int index = routeIndexFor(value.getClass());
+
+        if (index == UNHANDLED) {
+          throw new UnknownEffectException(value);
+        }
+
+        connections.get(index).accept(value);
+      }
+
+      @Override
+      public void dispose() {
+        for (Connection<F> connection : connections) {
+          connection.dispose();
+        }
+      }
+    };
+  }
+
+  private int routeIndexFor(Class<?> valueClass) {
+    Integer index = routeIndexByClass.get(valueClass);
+
+    if (index == null) {
+      index = findRouteIndex(valueClass);
+      routeIndexByClass.putIfAbsent(valueClass, index);
+    }
+
+    return index;
+  }
+
+  private int findRouteIndex(Class<?> valueClass) {
+    for (int i = 0; i < routes.size(); i++) {
+      if (routes.get(i).handles(valueClass)) {
+        return i;
+      }
+    }
+
+    return UNHANDLED;
+  }
+
+  /**
+   * A connectable that fails asynchronously, after accept() has returned. When it is added as a
+   * route, it gets the error handler of the router when it is connected, so that it reports
+   * failures the same way as the other routes.
+   */
+  interface ErrorReportingConnectable<G, E> extends Connectable<G, E> {
+    @Nonnull
+    Connection<G> connect(Consumer<E> output, BiConsumer<? super G, Throwable> errorHandler);
+  }
+
+  /**
+   * A sub-connectable together with the class of values it handles, and the options it was
+   * registered with.
+   */
+  static final class Route<G, E> {
+    private final Class<G> handledClass;
+    private final Connectable<G, E> connectable;
+    private final EffectHandlerOptions options;
+
+    Route(Class<G> handledClass, Connectable<G, E> connectable, EffectHandlerOptions options) {
+      this.handledClass = checkNotNull(handledClass);
+      this.connectable = checkNotNull(connectable);
+      this.options = checkNotNull(options);
+    }
+
+    Class<G> handledClass() {
+      return handledClass;
+    }
+
+    boolean handles(Class<?> valueClass) {
+      return handledClass.isAssignableFrom(valueClass);
+    }
+
+    <F> Connection<F> connect(Consumer<E> output, final BiConsumer<F, Throwable> errorHandler) {
+      final Connection<G> delegate;
+
+      if (connectable instanceof ErrorReportingConnectable) {
+        // the handled values are Fs as well, since they are routed here by their class
+        //noinspection unchecked
+        delegate =
+            ((ErrorReportingConnectable<G, E>) connectable)
+                .connect(output, (BiConsumer<? super G, Throwable>) errorHandler);
+      } else {
+        delegate = connectable.connect(output);
+      }
+
+      Connection<F> connection =
+          new Connection<F>() {
+            @Override
+            public void accept(F value) {
+              try {
+                // the value's class was matched against the handled class when the route was
+                // looked up
+                //noinspection unchecked
+                delegate.accept((G) value);
+              } catch (Exception e) {
+                errorHandler.accept(value, e);
+              }
+            }
+
+            @Override
+            public void dispose() {
+              delegate.dispose();
+            }
+          };
+
+      WorkRunner runner = options.runner();
+      int maxConcurrency = options.maxConcurrency();
+
+      if (runner == null && maxConcurrency == 1) {
+        return new SerialConnection<>(connection);
+      }
+      if (runner == null && maxConcurrency == EffectHandlerOptions.UNBOUNDED) {
+        return connection;
+      }
+
+      return new LimitedConcurrencyConnection<>(connection, runner, maxConcurrency);
+    }
+  }
+}
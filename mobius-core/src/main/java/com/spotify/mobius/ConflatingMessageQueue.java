@@ -0,0 +1,184 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An unbounded {@link MessageQueue} where a message replaces a pending message with the same {@link
+ * ConflationKey}, keeping its position in the queue. Messages without a key are queued as usual.
+ *
+ * <p>Each queued message is held in a slot, and the slots of pending messages with a key are
+ * indexed by that key, so replacing a message is a map lookup and a CAS on the slot.
+ */
+class ConflatingMessageQueue<M> implements MessageQueue<M> {
+
+  private static final Object TAKEN = new Object();
+
+  @Nonnull private final ConflationKey<? super M> conflationKey;
+  private final Queue<Slot<M>> queue = new ConcurrentLinkedQueue<>();
+  private final ConcurrentMap<Object, Slot<M>> pendingByKey = new ConcurrentHashMap<>();
+  private final AtomicLong dropped = new AtomicLong(0);
+  private volatile boolean disposed;
+
+  ConflatingMessageQueue(ConflationKey<? super M> conflationKey) {
+    this.conflationKey = checkNotNull(conflationKey);
+  }
+
+  @Override
+  public void offer(M message, boolean mayBlock) {
+    checkNotNull(message);
+
+    if (disposed) {
+      dropped.incrementAndGet();
+      MessageEnvelope.discard(message);
+      return;
+    }
+
+    //noinspection unchecked
+    Object key = conflationKey.of((M) MessageEnvelope.unwrap(message));
+
+    if (key == null) {
+      queue.offer(new Slot<>(null, message));
+      return;
+    }
+
+    while (true) {
+      Slot<M> pending = pendingByKey.get(key);
+
+      if (pending != null) {
+        Object replaced = pending.replace(message);
+
+        if (replaced != TAKEN) {
+          dropped.incrementAndGet();
+          MessageEnvelope.discard(replaced);
+          return;
+        }
+
+        // the consumer took the message while we were looking; it will remove the slot from the
+        // map shortly, but there's no need to wait for that.
+        pendingByKey.remove(key, pending);
+        continue;
+      }
+
+      Slot<M> slot = new Slot<>(key, message);
+
+      if (pendingByKey.putIfAbsent(key, slot) == null) {
+        queue.offer(slot);
+        return;
+      }
+    }
+  }
+
+  @Nullable
+  @Override
+  public M poll() {
+    if (disposed) {
+      return null;
+    }
+
+    Slot<M> slot = queue.poll();
+
+    if (slot == null) {
+      return null;
+    }
+
+    // concurrency note: the slot is removed from the map before its message is taken, so that a
+    // producer either replaces the message before it's taken, or fails to and queues a new slot.
+    if (slot.key != null) {
+      pendingByKey.remove(slot.key, slot);
+    }
+
+    return slot.take();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  @Override
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public long rejectedCount() {
+    return 0;
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+
+    // pending messages are counted as dropped, so that the counts still add up to the number of
+    // messages offered. Taking the message out of its slot makes sure that it isn't also delivered
+    // or replaced, if the consumer or a producer gets to the slot at the same time.
+    Slot<M> slot;
+    while ((slot = queue.poll()) != null) {
+      Object message = slot.getAndSet(TAKEN);
+
+      if (message != TAKEN) {
+        dropped.incrementAndGet();
+        MessageEnvelope.discard(message);
+      }
+    }
+
+    pendingByKey.clear();
+  }
+
+  private static class Slot<M> extends AtomicReference<Object> {
+    @Nullable private final Object key;
+
+    private Slot(@Nullable Object key, M message) {
+      super(message);
+      this.key = key;
+    }
+
+    /** @return the replaced message, or {@link #TAKEN} if the consumer already took it */
+    Object replace(M message) {
+      while (true) {
+        Object current = get();
+
+        if (current == TAKEN) {
+          return TAKEN;
+        }
+
+        if (compareAndSet(current, message)) {
+          return current;
+        }
+      }
+    }
+
+    M take() {
+      //noinspection unchecked
+      return (M) getAndSet(TAKEN);
+    }
+  }
+}
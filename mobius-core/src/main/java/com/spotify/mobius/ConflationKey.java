@@ -0,0 +1,42 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import javax.annotation.Nullable;
+
+/**
+ * Determines which events supersede each other. When a loop conflates events, a newly dispatched
+ * event replaces a pending event with an equal key, instead of being queued after it.
+ *
+ * <p>Typically used for high-frequency events where only the latest value matters, like scroll
+ * positions or progress updates; for instance, returning the class of such events, and null for
+ * all others.
+ *
+ * @param <E> the event type
+ */
+public interface ConflationKey<E> {
+
+  /**
+   * @return the key of the event, compared using {@link Object#equals(Object)}, or null if the
+   *     event should never be conflated
+   */
+  @Nullable
+  Object of(E event);
+}
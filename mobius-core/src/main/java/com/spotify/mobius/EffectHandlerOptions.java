@@ -0,0 +1,126 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.runners.WorkRunner;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Options for a handler registered with an {@link EffectRouterBuilder}, controlling how the
+ * effects sent to it may be executed.
+ *
+ * <p>Effects are dispatched to the router from the loop's effect runner, which may run several of
+ * them at the same time. By default, each handler gets its own serial lane: it only ever sees one
+ * effect at a time, but doesn't hold up effects for other handlers. Handlers that are safe to call
+ * from several threads at once can be registered as {@link #threadSafe()} to have their effects
+ * run concurrently, or as {@link #concurrent(int)} to have at most a given number of their effects
+ * run at the same time, with further effects queued until one of them is done.
+ *
+ * <p>Handlers can also be given a {@link WorkRunner} of their own using {@link
+ * #runOn(WorkRunner)}, for instance an I/O pool for slow effects. Together with a concurrency
+ * limit, this works as a bulkhead: a flood of one slow effect type only fills up its own queue,
+ * and can't starve the loop's effect runner or the handlers of other effect types.
+ *
+ * <p>The limits apply to each connection of the router, that is, to each loop using it.
+ */
+public final class EffectHandlerOptions {
+
+  static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private static final EffectHandlerOptions SERIAL = new EffectHandlerOptions(1, null);
+  private static final EffectHandlerOptions THREAD_SAFE = new EffectHandlerOptions(UNBOUNDED, null);
+
+  private final int maxConcurrency;
+  @Nullable private final WorkRunner runner;
+
+  private EffectHandlerOptions(int maxConcurrency, @Nullable WorkRunner runner) {
+    this.maxConcurrency = maxConcurrency;
+    this.runner = runner;
+  }
+
+  /**
+   * Run the effects for the handler one at a time, in the order they are received. This is the
+   * default for handlers registered without options.
+   */
+  @Nonnull
+  public static EffectHandlerOptions serial() {
+    return SERIAL;
+  }
+
+  /**
+   * Let the effects for the handler run concurrently. The handler must be safe to invoke from
+   * several threads at the same time, and must not rely on effects arriving in any order.
+   */
+  @Nonnull
+  public static EffectHandlerOptions threadSafe() {
+    return THREAD_SAFE;
+  }
+
+  /**
+   * Let at most {@code maxConcurrency} effects for the handler run at the same time, queueing any
+   * further effects until one of the running ones is done. Unless the limit is 1, the handler must
+   * be safe to invoke from several threads at the same time.
+   *
+   * @throws IllegalArgumentException if maxConcurrency is less than 1
+   */
+  @Nonnull
+  public static EffectHandlerOptions concurrent(int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException(
+          "maxConcurrency must be at least 1, was: " + maxConcurrency);
+    }
+
+    return new EffectHandlerOptions(maxConcurrency, null);
+  }
+
+  /**
+   * @return new options with the same concurrency as these, that run the effects for the handler
+   *     on the supplied runner, rather than on the thread that sends them to the router. The runner
+   *     will not be disposed by the router, so it can be shared between handlers and loops.
+   */
+  @Nonnull
+  public EffectHandlerOptions runOn(WorkRunner runner) {
+    return new EffectHandlerOptions(maxConcurrency, checkNotNull(runner));
+  }
+
+  int maxConcurrency() {
+    return maxConcurrency;
+  }
+
+  @Nullable
+  WorkRunner runner() {
+    return runner;
+  }
+
+  @Override
+  public String toString() {
+    String concurrency =
+        maxConcurrency == 1
+            ? "serial"
+            : maxConcurrency == UNBOUNDED ? "threadSafe" : "maxConcurrency=" + maxConcurrency;
+
+    String runnerInfo = runner == null ? "" : ", runner=" + runner;
+
+    return "EffectHandlerOptions{" + concurrency + runnerInfo + "}";
+  }
+}
@@ -22,6 +22,8 @@ package com.spotify.mobius;
 import com.spotify.mobius.functions.BiConsumer;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Function;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Builder for a effect handler that routes to different sub-handlers based on effect type.
@@ -34,6 +36,13 @@ import com.spotify.mobius.functions.Function;
  * handler for that particular subtype of F. If a handler is found, it will be given the effect
  * object, otherwise an {@link UnknownEffectException} will be thrown.
  *
+ * <p>Effects for different handlers may be handled concurrently, if the loop's effect runner uses
+ * several threads. Each handler is given its effects one at a time, in the order they arrive,
+ * unless it is registered with {@link EffectHandlerOptions#threadSafe()}, in which case it may be
+ * invoked from several threads at once. A handler that is busy with an effect never holds up the
+ * effects for other handlers. The options can also limit how many effects a handler may run at
+ * once, and give it a {@link com.spotify.mobius.runners.WorkRunner} of its own.
+ *
  * <p>All the classes that the effect router know about must have a common type F. Note that
  * instances of the builder are mutable and not thread-safe.
  */
@@ -57,6 +66,20 @@ public interface EffectRouterBuilder<F, E> {
    */
   <G extends F> EffectRouterBuilder<F, E> addRunnable(Class<G> effectClass, Runnable action);
 
+  /**
+   * Like {@link #addRunnable(Class, Runnable)}, with options that control how the handler is
+   * invoked.
+   *
+   * @param effectClass the effect class to handle
+   * @param action the effect handler for the given effect class
+   * @param options the options for the handler
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  <G extends F> EffectRouterBuilder<F, E> addRunnable(
+      Class<G> effectClass, Runnable action, EffectHandlerOptions options);
+
   /**
    * Add a {@link Consumer} for handling effects of a given type. The consumer will be invoked with
    * each incoming effect object that extends the {@code effectClass}. This is useful for cases when
@@ -75,6 +98,57 @@ public interface EffectRouterBuilder<F, E> {
    */
   <G extends F> EffectRouterBuilder<F, E> addConsumer(Class<G> effectClass, Consumer<G> consumer);
 
+  /**
+   * Like {@link #addConsumer(Class, Consumer)}, with options that control how the handler is
+   * invoked.
+   *
+   * @param effectClass the effect class to handle
+   * @param consumer the effect handler for the given effect class
+   * @param options the options for the handler
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  <G extends F> EffectRouterBuilder<F, E> addConsumer(
+      Class<G> effectClass, Consumer<G> consumer, EffectHandlerOptions options);
+
+  /**
+   * Add a {@link Consumer} for handling effects of a given type in batches. Effects that extend the
+   * {@code effectClass} are buffered, and the consumer is invoked with a list of them when {@code
+   * maxBatch} effects have been buffered, or {@code maxDelayMs} milliseconds after the first effect
+   * in the batch was received, whichever happens first. Any effects still buffered when the
+   * connection is disposed are handed to the consumer as a final batch. This is useful for effects
+   * that are individually cheap, but that each lead to a costly operation such as a remote write.
+   *
+   * <p>The consumer is invoked on the supplied scheduler, which isn't shut down by the handler and
+   * can be shared by any number of handlers and loops. Each connection hands the consumer one batch
+   * at a time, so it doesn't need to be thread-safe. The effects in a batch are in the order they
+   * were received. If the consumer throws, the fatal error handler that was set when the router was
+   * built is invoked for each effect in the batch. Since batches are handled asynchronously, an
+   * exception thrown by the error handler is passed to the uncaught exception handler of the
+   * scheduler's thread.
+   *
+   * <p>Adding handlers for two effect classes where one is a super-class of the other is considered
+   * a collision and is not allowed. Registering the same class twice is also considered a
+   * collision.
+   *
+   * @param effectClass the effect class to handle
+   * @param maxBatch the maximum number of effects in a batch
+   * @param maxDelayMs the maximum time in milliseconds that an effect may be buffered
+   * @param scheduler the scheduler that delays batches and invokes the consumer
+   * @param consumer the effect handler for batches of the given effect class
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision, if maxBatch is less than 1,
+   *     or if maxDelayMs is negative
+   */
+  <G extends F> EffectRouterBuilder<F, E> addBatchConsumer(
+      Class<G> effectClass,
+      int maxBatch,
+      long maxDelayMs,
+      ScheduledExecutorService scheduler,
+      Consumer<List<G>> consumer);
+
   /**
    * Add a {@link Function} for handling effects of a given type. The function will be applied to
    * each incoming effect object that extends the {@code effectClass} and the resulting event will
@@ -94,6 +168,20 @@ public interface EffectRouterBuilder<F, E> {
   <G extends F> EffectRouterBuilder<F, E> addFunction(
       Class<G> effectClass, Function<G, E> function);
 
+  /**
+   * Like {@link #addFunction(Class, Function)}, with options that control how the handler is
+   * invoked.
+   *
+   * @param effectClass the effect class to handle
+   * @param function the effect handler for the given effect class
+   * @param options the options for the handler
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  <G extends F> EffectRouterBuilder<F, E> addFunction(
+      Class<G> effectClass, Function<G, E> function, EffectHandlerOptions options);
+
   /**
    * Add a {@link Connectable} for handling effects of a given type. Each incoming effect object
    * that extends the {@code effectClass} will be sent to the connectable. This option gives the
@@ -114,6 +202,20 @@ public interface EffectRouterBuilder<F, E> {
   <G extends F> EffectRouterBuilder<F, E> addConnectable(
       Class<G> effectClass, Connectable<G, E> connectable);
 
+  /**
+   * Like {@link #addConnectable(Class, Connectable)}, with options that control how the handler is
+   * invoked.
+   *
+   * @param effectClass the effect class to handle
+   * @param connectable the effect handler for the given effect class
+   * @param options the options for the handler
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  <G extends F> EffectRouterBuilder<F, E> addConnectable(
+      Class<G> effectClass, Connectable<G, E> connectable, EffectHandlerOptions options);
+
   /**
    * Optionally set a shared error handler in case a handler throws an uncaught exception.
    *
@@ -26,12 +26,12 @@ import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Function;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.Nonnull;
 
 class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
 
-  private final List<Connectable<F, E>> connectables;
-  private final List<Class<?>> registeredClasses;
+  private final List<ClassRoutingConnectable.Route<? extends F, E>> routes;
   private BiConsumer<F, Throwable> errorHandler =
       new BiConsumer<F, Throwable>() {
         @Override
@@ -41,13 +41,18 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
       };
 
   EffectRouterBuilderImpl() {
-    connectables = new ArrayList<>();
-    registeredClasses = new ArrayList<>();
+    routes = new ArrayList<>();
   }
 
   @Override
   public <G extends F> EffectRouterBuilder<F, E> addRunnable(
-      Class<G> effectClass, final Runnable action) {
+      Class<G> effectClass, Runnable action) {
+    return addRunnable(effectClass, action, EffectHandlerOptions.serial());
+  }
+
+  @Override
+  public <G extends F> EffectRouterBuilder<F, E> addRunnable(
+      Class<G> effectClass, final Runnable action, EffectHandlerOptions options) {
     checkNotNull(action);
 
     return addConnectable(
@@ -66,12 +71,19 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
               public void dispose() {}
             };
           }
-        });
+        },
+        options);
+  }
+
+  @Override
+  public <G extends F> EffectRouterBuilder<F, E> addConsumer(
+      Class<G> effectClass, Consumer<G> consumer) {
+    return addConsumer(effectClass, consumer, EffectHandlerOptions.serial());
   }
 
   @Override
   public <G extends F> EffectRouterBuilder<F, E> addConsumer(
-      Class<G> effectClass, final Consumer<G> consumer) {
+      Class<G> effectClass, final Consumer<G> consumer, EffectHandlerOptions options) {
     checkNotNull(consumer);
 
     return addConnectable(
@@ -90,12 +102,35 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
               public void dispose() {}
             };
           }
-        });
+        },
+        options);
+  }
+
+  @Override
+  public <G extends F> EffectRouterBuilder<F, E> addBatchConsumer(
+      Class<G> effectClass,
+      int maxBatch,
+      long maxDelayMs,
+      ScheduledExecutorService scheduler,
+      Consumer<List<G>> consumer) {
+    // the batching connection only buffers effects when it's called, and never calls the consumer
+    // concurrently, so it can be called from several threads at once. Batches fail asynchronously,
+    // so the connection gets the error handler of the built router when it is connected.
+    return addConnectable(
+        effectClass,
+        new BatchingConnectable<G, E>(maxBatch, maxDelayMs, scheduler, consumer),
+        EffectHandlerOptions.threadSafe());
   }
 
   @Override
   public <G extends F> EffectRouterBuilder<F, E> addFunction(
-      Class<G> effectClass, final Function<G, E> function) {
+      Class<G> effectClass, Function<G, E> function) {
+    return addFunction(effectClass, function, EffectHandlerOptions.serial());
+  }
+
+  @Override
+  public <G extends F> EffectRouterBuilder<F, E> addFunction(
+      Class<G> effectClass, final Function<G, E> function, EffectHandlerOptions options) {
     checkNotNull(function);
 
     return addConnectable(
@@ -115,15 +150,22 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
               public void dispose() {}
             };
           }
-        });
+        },
+        options);
   }
 
   @Override
   public <G extends F> EffectRouterBuilder<F, E> addConnectable(
       Class<G> effectClass, Connectable<G, E> connectable) {
-    validateAndTrackeffectClass(effectClass);
+    return addConnectable(effectClass, connectable, EffectHandlerOptions.serial());
+  }
+
+  @Override
+  public <G extends F> EffectRouterBuilder<F, E> addConnectable(
+      Class<G> effectClass, Connectable<G, E> connectable, EffectHandlerOptions options) {
+    validateEffectClass(effectClass);
 
-    connectables.add(new SubtypeFilteringConnectable<>(effectClass, connectable));
+    routes.add(new ClassRoutingConnectable.Route<>(effectClass, connectable, options));
 
     return this;
   }
@@ -135,8 +177,10 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
     return this;
   }
 
-  private <G extends F> void validateAndTrackeffectClass(Class<G> effectClass) {
-    for (Class<?> existing : registeredClasses) {
+  private <G extends F> void validateEffectClass(Class<G> effectClass) {
+    for (ClassRoutingConnectable.Route<? extends F, E> route : routes) {
+      Class<?> existing = route.handledClass();
+
       if (effectClass.isAssignableFrom(existing) || existing.isAssignableFrom(effectClass)) {
         throw new IllegalArgumentException(
             "Effect classes must not be assignable to each other, "
@@ -145,49 +189,10 @@ class EffectRouterBuilderImpl<F, E> implements EffectRouterBuilder<F, E> {
                 + existing.getName());
       }
     }
-
-    registeredClasses.add(effectClass);
   }
 
   @Override
   public Connectable<F, E> build() {
-    connectables.add(new UnknownEffectReportingConnectable<F, E>(registeredClasses));
-
-    return new SafeConnectable<>(MergedConnectable.create(connectables));
-  }
-
-  private class SubtypeFilteringConnectable<G extends F> implements Connectable<F, E> {
-    private final Class<G> handledClass;
-    private final Connectable<G, E> delegate;
-
-    SubtypeFilteringConnectable(Class<G> handledClass, Connectable<G, E> delegate) {
-      this.handledClass = handledClass;
-      this.delegate = delegate;
-    }
-
-    @Nonnull
-    @Override
-    public Connection<F> connect(Consumer<E> output) throws ConnectionLimitExceededException {
-      final Connection<G> delegateConnection = delegate.connect(checkNotNull(output));
-
-      return new Connection<F>() {
-        @Override
-        public void accept(F value) {
-          if (handledClass.isInstance(value)) {
-            try {
-              delegateConnection.accept(handledClass.cast(value));
-            } catch (Exception e) {
-              errorHandler.accept(value, e);
-            }
-          }
-          // ignore
-        }
-
-        @Override
-        public void dispose() {
-          delegateConnection.dispose();
-        }
-      };
-    }
+    return new SafeConnectable<>(new ClassRoutingConnectable<>(routes, errorHandler));
   }
 }
@@ -19,6 +19,7 @@
  */
 package com.spotify.mobius;
 
+import com.spotify.mobius.internal_util.ImmutableUtil;
 import com.spotify.mobius.internal_util.Preconditions;
 import java.util.Collections;
 import java.util.HashSet;
@@ -49,4 +50,37 @@ public final class Effects {
 
     return result;
   }
+
+  /**
+   * Create an immutable sequence of effects that keeps the effects in the order they were supplied.
+   * Effects from such a sequence are dispatched in that order, and since they are neither hashed
+   * nor compared to each other, this is cheaper than {@link #effects(Object[])} for effects whose
+   * hashCode() or equals() are expensive. The sequence can be added to a {@link Next} or {@link
+   * First} without being copied.
+   *
+   * <p>The sequence is typed as a {@link Set} so that it can be used wherever effects are, but
+   * duplicates are not removed: an effect that is supplied twice is dispatched twice. It is only a
+   * proper set if the effects are distinct; use {@link #orderedDistinct(Object[])} if they may not
+   * be.
+   *
+   * @return an immutable, ordered sequence of effects
+   */
+  @SafeVarargs
+  @Nonnull
+  public static <F, G extends F> Set<F> ordered(G... effects) {
+    return ImmutableUtil.<F>orderedSet(effects);
+  }
+
+  /**
+   * Like {@link #ordered(Object[])}, but drops any duplicate effects, keeping the first occurrence
+   * of each. Duplicates are found by comparing each effect to the ones before it using equals(), so
+   * hashCode() is never called, but the cost grows quadratically with the number of effects.
+   *
+   * @return an immutable, ordered set of distinct effects
+   */
+  @SafeVarargs
+  @Nonnull
+  public static <F, G extends F> Set<F> orderedDistinct(G... effects) {
+    return ImmutableUtil.<F>orderedDistinctSet(effects);
+  }
 }
@@ -22,12 +22,19 @@ package com.spotify.mobius;
 import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.functions.Consumer;
-import java.util.ArrayList;
-import java.util.List;
+import com.spotify.mobius.internal_util.CompactSet;
+import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Processes events and emits effects and models as a result of that.
  *
+ * <p>Concurrency note: an event processor is not thread-safe. It expects {@link #init()} and all
+ * calls to {@link #update(Object)} to be made serially, by a single consumer of events at a time;
+ * in a {@link MobiusLoop}, that is guaranteed by only calling it from the loop's event dispatcher.
+ * Events that arrive before init are queued up by the dispatcher, not by the processor. The model
+ * counts may be read from any thread.
+ *
  * @param <M> model type
  * @param <E> event type
  * @param <F> effect descriptor type
@@ -37,20 +44,39 @@ class EventProcessor<M, E, F> {
   private final MobiusStore<M, E, F> store;
   private final Consumer<F> effectConsumer;
   private final Consumer<M> modelConsumer;
+  private final boolean distinctModels;
 
-  // concurrency note: the two below fields are only read and written in synchronized sections,
-  // hence no need for further coordination.
-  private final List<E> eventsReceivedBeforeInit = new ArrayList<>();
   private boolean initialised = false;
 
+  // only used if distinctModels is set
+  @Nullable private M lastModel;
+
+  // only written by the thread processing events, so incrementing them needs no synchronisation
+  private volatile long emittedModels;
+  private volatile long suppressedModels;
+  private volatile long dispatchedEffects;
+
   EventProcessor(
       MobiusStore<M, E, F> store, Consumer<F> effectConsumer, Consumer<M> modelConsumer) {
+    this(store, effectConsumer, modelConsumer, false);
+  }
+
+  /**
+   * @param distinctModels whether to skip models that are identical or equal to the previous one,
+   *     rather than passing them on to the model consumer
+   */
+  EventProcessor(
+      MobiusStore<M, E, F> store,
+      Consumer<F> effectConsumer,
+      Consumer<M> modelConsumer,
+      boolean distinctModels) {
     this.store = checkNotNull(store);
     this.effectConsumer = checkNotNull(effectConsumer);
     this.modelConsumer = checkNotNull(modelConsumer);
+    this.distinctModels = distinctModels;
   }
 
-  synchronized void init() {
+  void init() {
     if (initialised) {
       throw new IllegalStateException("already initialised");
     }
@@ -61,34 +87,76 @@ class EventProcessor<M, E, F> {
     dispatchEffects(first.effects());
 
     initialised = true;
-    for (E event : eventsReceivedBeforeInit) {
-      update(event);
-    }
   }
 
-  synchronized void update(E event) {
+  void update(E event) {
     if (!initialised) {
-      eventsReceivedBeforeInit.add(event);
-      return;
+      throw new IllegalStateException("cannot process events before init");
     }
 
     Next<M, F> next = store.update(event);
 
-    next.ifHasModel(
-        new Consumer<M>() {
-          @Override
-          public void accept(M model) {
-            dispatchModel(model);
-          }
-        });
+    // this runs for every event, so avoid allocating a consumer for ifHasModel
+    if (next.hasModel()) {
+      dispatchModel(next.modelUnsafe());
+    }
     dispatchEffects(next.effects());
   }
 
+  /** @return the number of models that have been passed on to the model consumer */
+  long emittedModelCount() {
+    return emittedModels;
+  }
+
+  /** @return the number of models that were skipped because they equalled the previous one */
+  long suppressedModelCount() {
+    return suppressedModels;
+  }
+
+  /** @return the number of effects that have been passed on to the effect consumer */
+  long dispatchedEffectCount() {
+    return dispatchedEffects;
+  }
+
   private void dispatchModel(M model) {
+    if (distinctModels) {
+      // check identity first, as it's the common case for updates that didn't change anything, and
+      // equals() may be expensive for large models
+      if (lastModel != null && (model == lastModel || model.equals(lastModel))) {
+        suppressedModels++;
+        return;
+      }
+
+      lastModel = model;
+    }
+
+    emittedModels++;
     modelConsumer.accept(model);
   }
 
-  private void dispatchEffects(Iterable<F> effects) {
+  private void dispatchEffects(Set<F> effects) {
+    if (effects.isEmpty()) {
+      // don't allocate an iterator in the common case of no effects
+      return;
+    }
+
+    dispatchedEffects += effects.size();
+
+    if (effectConsumer instanceof BatchConnection) {
+      ((BatchConnection<F>) effectConsumer).acceptBatch(effects);
+      return;
+    }
+
+    if (effects instanceof CompactSet) {
+      // the sets created by Next and First, read by index to avoid allocating an iterator
+      CompactSet<F> compactSet = (CompactSet<F>) effects;
+
+      for (int i = 0; i < compactSet.size(); i++) {
+        effectConsumer.accept(compactSet.get(i));
+      }
+      return;
+    }
+
     for (F effect : effects) {
       effectConsumer.accept(effect);
     }
@@ -104,13 +172,20 @@ class EventProcessor<M, E, F> {
   static class Factory<M, E, F> {
 
     private final MobiusStore<M, E, F> store;
+    private final boolean distinctModels;
 
     Factory(MobiusStore<M, E, F> store) {
+      this(store, false);
+    }
+
+    Factory(MobiusStore<M, E, F> store, boolean distinctModels) {
       this.store = checkNotNull(store);
+      this.distinctModels = distinctModels;
     }
 
     public EventProcessor<M, E, F> create(Consumer<F> effectConsumer, Consumer<M> modelConsumer) {
-      return new EventProcessor<>(store, checkNotNull(effectConsumer), checkNotNull(modelConsumer));
+      return new EventProcessor<>(
+          store, checkNotNull(effectConsumer), checkNotNull(modelConsumer), distinctModels);
     }
   }
 }
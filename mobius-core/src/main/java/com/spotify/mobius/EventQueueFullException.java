@@ -0,0 +1,44 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+/**
+ * Indicates that an event couldn't be dispatched to a {@link MobiusLoop}, because its bounded event
+ * queue was full. Only thrown by loops configured with {@link OverflowPolicy#reject()}, or with
+ * {@link OverflowPolicy#block()} when the dispatching thread can't wait for room in the queue or is
+ * interrupted while waiting.
+ */
+public class EventQueueFullException extends RuntimeException {
+
+  private final Object event;
+
+  public EventQueueFullException(Object event, String message) {
+    super(message);
+
+    this.event = checkNotNull(event);
+  }
+
+  /** @return the event that couldn't be dispatched */
+  public Object event() {
+    return event;
+  }
+}
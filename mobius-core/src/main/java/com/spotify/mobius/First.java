@@ -60,6 +60,6 @@ public abstract class First<M, F> {
    * @param <F> the effect type
    */
   public static <M, F> First<M, F> first(M model, Set<F> effects) {
-    return new AutoValue_First<>(model, effects);
+    return new AutoValue_First<>(model, ImmutableUtil.immutableSet(effects));
   }
 }
@@ -0,0 +1,146 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A connection that passes values to a delegate connection, with at most a given number of values
+ * being handled at the same time. Values beyond that limit are queued until a slot frees up.
+ *
+ * <p>Values are handled by workers, each occupying one slot: tasks posted to a {@link WorkRunner}
+ * if one is supplied, otherwise the sending threads themselves. A worker takes values from the
+ * queue until it is empty, and then frees its slot. If the delegate throws, the worker frees its
+ * slot, and a new worker is started for any values still queued before the exception is rethrown
+ * to the thread that was running the worker.
+ *
+ * <p>Disposing discards queued values, and disposes the delegate as soon as it isn't handling any
+ * value.
+ */
+class LimitedConcurrencyConnection<F> implements Connection<F> {
+
+  private final Connection<F> actual;
+  @Nullable private final WorkRunner runner;
+  private final int maxConcurrency;
+
+  private final Queue<F> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger activeWorkers = new AtomicInteger(0);
+  private final AtomicBoolean actualDisposed = new AtomicBoolean(false);
+  private final Runnable worker =
+      new Runnable() {
+        @Override
+        public void run() {
+          work();
+        }
+      };
+
+  private volatile boolean disposed;
+
+  LimitedConcurrencyConnection(
+      Connection<F> actual, @Nullable WorkRunner runner, int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException(
+          "maxConcurrency must be at least 1, was: " + maxConcurrency);
+    }
+
+    this.actual = checkNotNull(actual);
+    this.runner = runner;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  @Override
+  public void accept(F value) {
+    if (disposed) {
+      return;
+    }
+
+    pending.offer(value);
+    startWorkerIfPossible();
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    pending.clear();
+    disposeActualIfIdle();
+  }
+
+  private void startWorkerIfPossible() {
+    while (!disposed && !pending.isEmpty()) {
+      int active = activeWorkers.get();
+
+      if (active >= maxConcurrency) {
+        // one of the active workers will pick up the value
+        return;
+      }
+
+      if (activeWorkers.compareAndSet(active, active + 1)) {
+        if (runner != null) {
+          try {
+            runner.post(worker);
+          } catch (RuntimeException | Error e) {
+            // the worker will never run, so it must not keep its slot
+            activeWorkers.decrementAndGet();
+
+            if (disposed) {
+              disposeActualIfIdle();
+            }
+            throw e;
+          }
+        } else {
+          work();
+        }
+        return;
+      }
+    }
+  }
+
+  private void work() {
+    try {
+      F value;
+
+      while (!disposed && (value = pending.poll()) != null) {
+        actual.accept(value);
+      }
+    } finally {
+      activeWorkers.decrementAndGet();
+
+      if (disposed) {
+        disposeActualIfIdle();
+      } else {
+        // a value may have been queued after the last poll, by a thread that found no free slot
+        startWorkerIfPossible();
+      }
+    }
+  }
+
+  private void disposeActualIfIdle() {
+    if (activeWorkers.get() == 0 && actualDisposed.compareAndSet(false, true)) {
+      actual.dispose();
+    }
+  }
+}
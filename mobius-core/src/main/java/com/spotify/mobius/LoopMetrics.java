@@ -0,0 +1,279 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Runtime metrics of a {@link MobiusLoop}: how many events are waiting to be processed and how long
+ * they wait, how many effects are waiting for or running on the effect runner, and how many models
+ * observers have been notified of.
+ *
+ * <p>This is a live view: each getter reads the current value, and may be called from any thread.
+ * Keeping the metrics up to date is cheap enough to always be on. Counters that are updated by many
+ * threads, like the number of dispatched events, are striped over several memory locations, and
+ * the rest are only written by the loop's event thread.
+ *
+ * <p>Two of the metrics are sampled, to keep their cost down: the highest queue depth is checked
+ * when the first of every {@value #DEPTH_SAMPLE_INTERVAL} events is taken from the queue and
+ * whenever the depth is read, so it can miss short-lived peaks; and the queueing delay is measured
+ * for one event at a time, so only a subset of events is timed when events arrive faster than they
+ * are processed.
+ */
+public final class LoopMetrics {
+
+  static final int DEPTH_SAMPLE_INTERVAL = 16;
+
+  @Nonnull private final MessageQueue<?> eventQueue;
+
+  private final StripedCounter dispatchedEvents = new StripedCounter();
+  private final StripedCounter completedEffects = new StripedCounter();
+  private final AtomicLong maxEventQueueDepth = new AtomicLong();
+
+  // the envelope used to time the next event, which is null while it holds an event being timed;
+  // reusing it keeps timing from allocating anything
+  private final AtomicReference<DelaySample> idleDelaySample =
+      new AtomicReference<>(new DelaySample());
+
+  // set by the loop once it has created its event processor
+  @Nullable private volatile EventProcessor<?, ?, ?> eventProcessor;
+
+  // the following are only written by the event thread, so they need no further synchronisation
+  private volatile long processedEvents;
+  private volatile long delaySamples;
+  private volatile long totalDelayNanos;
+  private volatile long maxDelayNanos;
+
+  LoopMetrics(MessageQueue<?> eventQueue) {
+    this.eventQueue = checkNotNull(eventQueue);
+  }
+
+  void setEventProcessor(EventProcessor<?, ?, ?> eventProcessor) {
+    this.eventProcessor = checkNotNull(eventProcessor);
+  }
+
+  /**
+   * Called before an event is added to the event queue.
+   *
+   * @return the message to add to the queue instead of the supplied one, which is the same message
+   *     unless it is put in an envelope to time it
+   */
+  Object onEventDispatching(Object message) {
+    // start timing this event, unless another one is already being timed
+    DelaySample sample = idleDelaySample.get();
+    if (sample == null || !idleDelaySample.compareAndSet(sample, null)) {
+      return message;
+    }
+
+    sample.message = message;
+    sample.dispatchedNanos = System.nanoTime();
+    return sample;
+  }
+
+  /** Called after an event has been added to the event queue. */
+  void onEventDispatched() {
+    dispatchedEvents.increment();
+  }
+
+  /**
+   * Called if adding an event to the event queue failed. The event may or may not have been
+   * queued, so if it is being timed, its envelope is never used again.
+   *
+   * @param message the message returned by {@link #onEventDispatching(Object)}
+   */
+  void onEventDispatchFailed(Object message) {
+    if (message instanceof LoopMetrics.DelaySample) {
+      ((DelaySample) message).retired = true;
+      idleDelaySample.set(new DelaySample());
+    }
+  }
+
+  /**
+   * Called on the event thread, before an event is handed to the update function.
+   *
+   * @param message the message taken from the event queue
+   * @return the message that was passed to {@link #onEventDispatching(Object)}
+   */
+  Object onEventProcessing(Object message) {
+    long processed = processedEvents;
+
+    if (processed % DEPTH_SAMPLE_INTERVAL == 0) {
+      // counting the event that was just taken from the queue
+      getEventQueueDepth();
+    }
+
+    processedEvents = processed + 1;
+
+    if (!(message instanceof LoopMetrics.DelaySample)) {
+      return message;
+    }
+
+    DelaySample sample = (DelaySample) message;
+    Object event = sample.message;
+    recordDelay(System.nanoTime() - sample.dispatchedNanos);
+    sample.release();
+
+    return event;
+  }
+
+  /** Called after a number of effects have been handed to the effect handler. */
+  void onEffectsCompleted(int count) {
+    completedEffects.add(count);
+  }
+
+  /** @return the number of events that have been dispatched to the loop */
+  public long getDispatchedEventCount() {
+    return dispatchedEvents.sum();
+  }
+
+  /** @return the number of events that have been handed to the update function */
+  public long getProcessedEventCount() {
+    return processedEvents;
+  }
+
+  /** @return the number of events that are waiting in the event queue */
+  public long getEventQueueDepth() {
+    // read the processed and dropped counts first, so that they can't get ahead of the dispatched
+    // count; it may still lag behind them, since it's incremented after an event has been queued
+    long done = processedEvents + eventQueue.droppedCount();
+    long depth = Math.max(0, dispatchedEvents.sum() - done);
+
+    long max;
+    do {
+      max = maxEventQueueDepth.get();
+    } while (depth > max && !maxEventQueueDepth.compareAndSet(max, depth));
+
+    return depth;
+  }
+
+  /** @return the highest number of events seen waiting in the event queue at once */
+  public long getMaxEventQueueDepth() {
+    return maxEventQueueDepth.get();
+  }
+
+  /** @return the number of events whose queueing delay was measured */
+  public long getEventQueueingDelaySampleCount() {
+    return delaySamples;
+  }
+
+  /**
+   * @return the mean time, in nanoseconds, between dispatching an event and handing it to the
+   *     update function, of the events that were timed; 0 if none were
+   */
+  public long getMeanEventQueueingDelayNanos() {
+    long samples = delaySamples;
+    return samples == 0 ? 0 : totalDelayNanos / samples;
+  }
+
+  /**
+   * @return the longest time, in nanoseconds, between dispatching an event and handing it to the
+   *     update function, of the events that were timed
+   */
+  public long getMaxEventQueueingDelayNanos() {
+    return maxDelayNanos;
+  }
+
+  /** @return the number of effects that update and init have dispatched to the effect runner */
+  public long getDispatchedEffectCount() {
+    EventProcessor<?, ?, ?> processor = eventProcessor;
+    return processor == null ? 0 : processor.dispatchedEffectCount();
+  }
+
+  /**
+   * @return the number of effects that are waiting for the effect runner, or are being handed to
+   *     the effect handler by it
+   */
+  public long getInFlightEffectCount() {
+    // read the completed count first, so that it can't get ahead of the dispatched count
+    long completed = completedEffects.sum();
+    return Math.max(0, getDispatchedEffectCount() - completed);
+  }
+
+  /**
+   * @return the number of effects that the effect runner has handed to the effect handler. Since
+   *     an effect handler may handle effects asynchronously, they may still be running.
+   */
+  public long getCompletedEffectCount() {
+    return completedEffects.sum();
+  }
+
+  /**
+   * @return the number of models that observers have been notified of, including the initial one
+   */
+  public long getEmittedModelCount() {
+    EventProcessor<?, ?, ?> processor = eventProcessor;
+    return processor == null ? 0 : processor.emittedModelCount();
+  }
+
+  /** @return the number of unchanged models that observers were not notified of */
+  public long getSuppressedModelCount() {
+    EventProcessor<?, ?, ?> processor = eventProcessor;
+    return processor == null ? 0 : processor.suppressedModelCount();
+  }
+
+  private void recordDelay(long nanos) {
+    delaySamples = delaySamples + 1;
+    totalDelayNanos = totalDelayNanos + nanos;
+
+    if (nanos > maxDelayNanos) {
+      maxDelayNanos = nanos;
+    }
+  }
+
+  /**
+   * The envelope of a timed event, which tells this dispatch of the event apart from others of the
+   * same object. There is only one of these in the event queue at a time, and it is reused for the
+   * next timed event once the event in it has been processed, or dropped by the queue.
+   *
+   * <p>The fields are written before the envelope is queued and read after it has been taken from
+   * the queue, so the queue publishes them.
+   */
+  private final class DelaySample extends MessageEnvelope {
+    @Nullable private Object message;
+    private long dispatchedNanos;
+
+    // set if the envelope may still be in the queue when it has been given up on
+    private volatile boolean retired;
+
+    @Override
+    Object message() {
+      return message;
+    }
+
+    @Override
+    void discarded() {
+      Object discarded = message;
+      release();
+      MessageEnvelope.discard(discarded);
+    }
+
+    private void release() {
+      if (!retired) {
+        message = null;
+        idleDelaySample.set(this);
+      }
+    }
+  }
+}
@@ -24,13 +24,26 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Dispatches messages to a given runner.
  *
+ * <p>By default, each message is posted to the runner as a separate task. A dispatcher created
+ * using {@link #draining(WorkRunner, Consumer, int)} instead keeps an internal queue of messages,
+ * and has at most one task at a time posted to the runner; that task delivers up to a configurable
+ * number of queued messages before handing the runner back, re-posting itself if there are more.
+ * Since there is never more than one drain task, a draining dispatcher delivers messages to its
+ * consumer from a single thread at a time, even if the runner is multi-threaded.
+ *
+ * <p>A draining dispatcher can also be created in a paused state using {@link #paused(WorkRunner,
+ * Consumer, MessageQueue, int)}, with a {@link MessageQueue} that may be bounded. Messages sent to
+ * it are queued up, but not delivered until {@link #start(Runnable)} is called.
+ *
  * @param <M> message type (typically a model, event, or effect descriptor type)
  */
 class MessageDispatcher<M> implements Consumer<M>, Disposable {
@@ -40,30 +53,190 @@ class MessageDispatcher<M> implements Consumer<M>, Disposable {
   @Nonnull private final WorkRunner runner;
   @Nonnull private final Consumer<M> consumer;
 
+  // only used in draining mode; the queue is null otherwise.
+  @Nullable private final MessageQueue<M> queue;
+  private final int maxBatchSize;
+  private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+  private final AtomicBoolean started;
+  private final Runnable drainTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          drain();
+        }
+      };
+
+  // the thread currently running the drain task, if any; messages it sends to this dispatcher must
+  // not block waiting for room in the queue, since it is the only one that can make room.
+  @Nullable private volatile Thread drainingThread;
+
+  // false until a paused dispatcher has run its first task; until then, nothing is draining the
+  // queue, so producers must not block waiting for room in it either.
+  private volatile boolean draining;
+
+  private volatile boolean disposed;
+
   MessageDispatcher(WorkRunner runner, Consumer<M> consumer) {
+    this(runner, consumer, null, 1, false);
+  }
+
+  private MessageDispatcher(
+      WorkRunner runner,
+      Consumer<M> consumer,
+      @Nullable MessageQueue<M> queue,
+      int maxBatchSize,
+      boolean paused) {
     this.runner = checkNotNull(runner);
     this.consumer = checkNotNull(consumer);
+    this.queue = queue;
+    this.maxBatchSize = maxBatchSize;
+
+    // a paused dispatcher acts as if a drain task has already been scheduled, so that accepting
+    // messages won't post one.
+    this.drainScheduled.set(paused);
+    this.started = new AtomicBoolean(!paused);
+    this.draining = !paused;
   }
 
-  @Override
-  public void accept(final M message) {
+  /**
+   * Create a dispatcher that queues messages and drains them in batches of at most {@code
+   * maxBatchSize} messages per task posted to the runner.
+   *
+   * @throws IllegalArgumentException if maxBatchSize is less than 1
+   */
+  static <M> MessageDispatcher<M> draining(
+      WorkRunner runner, Consumer<M> consumer, int maxBatchSize) {
+    return createDraining(runner, consumer, new UnboundedMessageQueue<M>(), maxBatchSize, false);
+  }
+
+  /**
+   * Create a draining dispatcher that queues messages in the supplied queue, but doesn't deliver
+   * any until {@link #start(Runnable)} is called.
+   *
+   * @throws IllegalArgumentException if maxBatchSize is less than 1
+   */
+  static <M> MessageDispatcher<M> paused(
+      WorkRunner runner, Consumer<M> consumer, MessageQueue<M> queue, int maxBatchSize) {
+    return createDraining(runner, consumer, checkNotNull(queue), maxBatchSize, true);
+  }
+
+  private static <M> MessageDispatcher<M> createDraining(
+      WorkRunner runner,
+      Consumer<M> consumer,
+      MessageQueue<M> queue,
+      int maxBatchSize,
+      boolean paused) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 1, was: " + maxBatchSize);
+    }
+
+    return new MessageDispatcher<>(runner, consumer, queue, maxBatchSize, paused);
+  }
+
+  /**
+   * Start delivering messages from a paused dispatcher. The supplied task will be run on the runner
+   * before any queued messages are delivered. If the task throws, the dispatcher stays paused.
+   *
+   * @throws IllegalStateException if this isn't a paused dispatcher, or if it was already started
+   */
+  void start(final Runnable firstTask) {
+    checkNotNull(firstTask);
+
+    if (started.getAndSet(true)) {
+      throw new IllegalStateException("can only start a paused dispatcher once");
+    }
+
     runner.post(
         new Runnable() {
           @Override
           public void run() {
+            drainingThread = Thread.currentThread();
             try {
-              consumer.accept(message);
+              firstTask.run();
+            } finally {
+              drainingThread = null;
+            }
 
-            } catch (Throwable throwable) {
-              LOGGER.error(
-                  "Consumer threw an exception when accepting message: {}", message, throwable);
+            draining = true;
+            drain();
+          }
+        });
+  }
+
+  @Override
+  public void accept(final M message) {
+    if (queue != null) {
+      queue.offer(message, draining && Thread.currentThread() != drainingThread);
+      scheduleDrain();
+      return;
+    }
+
+    runner.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (!disposed) {
+              deliver(message);
             }
           }
         });
   }
 
+  private void scheduleDrain() {
+    if (drainScheduled.compareAndSet(false, true)) {
+      runner.post(drainTask);
+    }
+  }
+
+  private void drain() {
+    // concurrency note: drainScheduled guarantees that only one drain task is ever posted at a
+    // time, so there is only ever a single thread polling the queue.
+    drainingThread = Thread.currentThread();
+
+    for (int i = 0; i < maxBatchSize && !disposed; i++) {
+      M message = queue.poll();
+
+      if (message == null) {
+        break;
+      }
+
+      deliver(message);
+    }
+
+    drainingThread = null;
+    drainScheduled.set(false);
+
+    // a message may have been offered after the last poll but before the flag was cleared; in that
+    // case, the producer saw the flag as set and relies on us to schedule another drain.
+    if (!disposed && !queue.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  private void deliver(M message) {
+    try {
+      consumer.accept(message);
+
+    } catch (Throwable throwable) {
+      LOGGER.error("Consumer threw an exception when accepting message: {}", message, throwable);
+    }
+  }
+
+  /**
+   * Stop delivering messages, without disposing the runner. Messages that are queued or that have
+   * been posted to the runner are dropped. This never blocks, unlike disposing some runners.
+   */
+  void stop() {
+    disposed = true;
+
+    if (queue != null) {
+      queue.dispose();
+    }
+  }
+
   @Override
   public void dispose() {
+    stop();
     runner.dispose();
   }
 }
@@ -0,0 +1,51 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+/**
+ * A message offered to a {@link MessageQueue} in an envelope, so that the offer can be told apart
+ * from other offers of the same message object. Queues apply their policies to the message in the
+ * envelope, and tell the envelope when they discard it instead of delivering it. Envelopes may be
+ * nested, and an envelope that is discarded should pass that on to the message it carries.
+ */
+abstract class MessageEnvelope {
+
+  /** @return the message carried by this envelope */
+  abstract Object message();
+
+  /** Called by the queue if it discards the envelope, because it dropped or replaced it. */
+  abstract void discarded();
+
+  /** @return the message carried by the supplied envelopes, or the message itself */
+  static Object unwrap(Object message) {
+    while (message instanceof MessageEnvelope) {
+      message = ((MessageEnvelope) message).message();
+    }
+
+    return message;
+  }
+
+  /** Tell the supplied message that it was discarded, if it is an envelope. */
+  static void discard(Object message) {
+    if (message instanceof MessageEnvelope) {
+      ((MessageEnvelope) message).discarded();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import javax.annotation.Nullable;
+
+/**
+ * A queue of messages waiting to be delivered by a draining {@link MessageDispatcher}. Any number
+ * of threads may offer messages, but only a single thread at a time polls the queue.
+ *
+ * @param <M> message type
+ */
+interface MessageQueue<M> {
+
+  /**
+   * Add a message to the queue, or deal with it according to the queue's policy if there is no
+   * room for it.
+   *
+   * @param message the message to add
+   * @param mayBlock false if the caller must not wait for room in the queue, either because it is
+   *     the thread polling the queue, or because nothing is polling the queue yet; in both cases
+   *     there might never be room for the message
+   */
+  void offer(M message, boolean mayBlock);
+
+  /** @return the oldest message in the queue, or null if the queue is empty */
+  @Nullable
+  M poll();
+
+  boolean isEmpty();
+
+  /**
+   * @return the number of messages that were discarded instead of being delivered, including the
+   *     ones that were pending when the queue was disposed or offered to it afterwards
+   */
+  long droppedCount();
+
+  /** @return the number of messages that were rejected with an exception */
+  long rejectedCount();
+
+  /**
+   * Discard all pending messages, counting them as dropped. The queue won't be polled again after
+   * this, and drops messages offered to it afterwards.
+   */
+  void dispose();
+}
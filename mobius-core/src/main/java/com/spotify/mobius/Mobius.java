@@ -24,11 +24,13 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Producer;
+import com.spotify.mobius.runners.LoopGroup;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
 import java.util.Locale;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 
@@ -115,6 +117,7 @@ public final class Mobius {
         (Init<M, F>) NOOP_INIT,
         (EventSource<E>) NOOP_EVENT_SOURCE,
         (MobiusLoop.Logger<M, E, F>) NOOP_LOGGER,
+        false,
         new Producer<WorkRunner>() {
           @Nonnull
           @Override
@@ -128,9 +131,35 @@ public final class Mobius {
           public WorkRunner get() {
             return WorkRunners.from(Executors.newCachedThreadPool(Builder.THREAD_FACTORY));
           }
+        },
+        MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+        new Producer<MessageQueue<E>>() {
+          @Nonnull
+          @Override
+          public MessageQueue<E> get() {
+            return new UnboundedMessageQueue<>();
+          }
         });
   }
 
+  /**
+   * Create a {@link SynchronousMobiusLoop.Builder} for a loop that runs events and effects on the
+   * calling thread, until there is nothing left to do. This is useful for handling requests in a
+   * server, where the model that results from an event is needed before responding.
+   *
+   * @param update the {@link Update} function of the loop
+   * @param effectHandler the {@link Connectable} effect handler of the loop
+   * @return a {@link SynchronousMobiusLoop.Builder} instance that you can further configure before
+   *     starting the loop
+   */
+  public static <M, E, F> SynchronousMobiusLoop.Builder<M, E, F> synchronousLoop(
+      Update<M, E, F> update, Connectable<F, E> effectHandler) {
+
+    //noinspection unchecked
+    return new SynchronousMobiusLoop.Builder<>(
+        update, effectHandler, (Init<M, F>) NOOP_INIT, (MobiusLoop.Logger<M, E, F>) NOOP_LOGGER);
+  }
+
   /**
    * Create a {@link MobiusLoop.Controller} that allows you to start, stop, and restart MobiusLoops.
    *
@@ -146,6 +175,10 @@ public final class Mobius {
   /**
    * Create a {@link MobiusLoop.Controller} that allows you to start, stop, and restart MobiusLoops.
    *
+   * <p>Models are rendered on the model runner one at a time. If the loop produces models faster
+   * than the view renders them, intermediate models are skipped, and the view renders the most
+   * recent one when the runner gets to it.
+   *
    * @param loopFactory a factory for creating loops
    * @param defaultModel the model the controller should start from
    * @param modelRunner the WorkRunner to use when observing model changes
@@ -156,6 +189,30 @@ public final class Mobius {
     return new MobiusLoopController<>(loopFactory, defaultModel, modelRunner);
   }
 
+  /**
+   * Create a {@link MobiusLoop.Controller} that allows you to start, stop, and restart MobiusLoops,
+   * and that renders at most one model per {@code minRenderInterval}. A model that arrives sooner
+   * after the previous render is held back until the interval has passed, and replaced if a newer
+   * model arrives in the meantime, so the view always ends up rendering the most recent model.
+   *
+   * @param loopFactory a factory for creating loops
+   * @param defaultModel the model the controller should start from
+   * @param modelRunner the WorkRunner to use when observing model changes
+   * @param minRenderInterval the minimum time between two renders
+   * @param unit the unit of minRenderInterval
+   * @return a new controller
+   * @throws IllegalArgumentException if minRenderInterval is negative
+   */
+  public static <M, E, F> MobiusLoop.Controller<M, E> controller(
+      MobiusLoop.Factory<M, E, F> loopFactory,
+      M defaultModel,
+      WorkRunner modelRunner,
+      long minRenderInterval,
+      TimeUnit unit) {
+    return new MobiusLoopController<>(
+        loopFactory, defaultModel, modelRunner, minRenderInterval, unit);
+  }
+
   /**
    * Create an {@link EffectRouterBuilder} that allows you to create a combined effect handlers
    * based on handlers for each effect sub-type.
@@ -180,6 +237,9 @@ public final class Mobius {
     private final Producer<WorkRunner> eventRunner;
     private final Producer<WorkRunner> effectRunner;
     private final MobiusLoop.Logger<M, E, F> logger;
+    private final boolean distinctModels;
+    private final int eventBatchSize;
+    private final Producer<MessageQueue<E>> eventQueue;
 
     private Builder(
         Update<M, E, F> update,
@@ -187,8 +247,11 @@ public final class Mobius {
         Init<M, F> init,
         EventSource<E> eventSource,
         MobiusLoop.Logger<M, E, F> logger,
+        boolean distinctModels,
         Producer<WorkRunner> eventRunner,
-        Producer<WorkRunner> effectRunner) {
+        Producer<WorkRunner> effectRunner,
+        int eventBatchSize,
+        Producer<MessageQueue<E>> eventQueue) {
       this.update = checkNotNull(update);
       this.effectHandler = checkNotNull(effectHandler);
       this.init = checkNotNull(init);
@@ -196,20 +259,41 @@ public final class Mobius {
       this.eventRunner = checkNotNull(eventRunner);
       this.effectRunner = checkNotNull(effectRunner);
       this.logger = checkNotNull(logger);
+      this.distinctModels = distinctModels;
+      this.eventBatchSize = eventBatchSize;
+      this.eventQueue = checkNotNull(eventQueue);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> init(Init<M, F> init) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> eventSource(EventSource<E> eventSource) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Nonnull
@@ -218,28 +302,184 @@ public final class Mobius {
         EventSource<E> eventSource, EventSource<E>... eventSources) {
       EventSource<E> mergedSource = MergedEventSource.from(eventSource, eventSources);
       return new Builder<>(
-          update, effectHandler, init, mergedSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          mergedSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> eventRunner(Producer<WorkRunner> eventRunner) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Override
     @Nonnull
     public MobiusLoop.Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner) {
       return new Builder<>(
-          update, effectHandler, init, eventSource, logger, eventRunner, effectRunner);
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> loopGroup(final LoopGroup loopGroup) {
+      checkNotNull(loopGroup);
+
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          new Producer<WorkRunner>() {
+            @Nonnull
+            @Override
+            public WorkRunner get() {
+              return loopGroup.nextEventRunner();
+            }
+          },
+          new Producer<WorkRunner>() {
+            @Nonnull
+            @Override
+            public WorkRunner get() {
+              return loopGroup.effectRunner();
+            }
+          },
+          eventBatchSize,
+          eventQueue);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> eventBatchSize(int maxEventsPerRun) {
+      if (maxEventsPerRun < 1) {
+        throw new IllegalArgumentException(
+            "maxEventsPerRun must be at least 1, was: " + maxEventsPerRun);
+      }
+
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          maxEventsPerRun,
+          eventQueue);
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> eventQueue(
+        final int capacity, final OverflowPolicy<? super E> overflowPolicy) {
+      if (capacity < 1) {
+        throw new IllegalArgumentException("capacity must be at least 1, was: " + capacity);
+      }
+      checkNotNull(overflowPolicy);
+
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          new Producer<MessageQueue<E>>() {
+            @Nonnull
+            @Override
+            public MessageQueue<E> get() {
+              return new BoundedMessageQueue<>(capacity, overflowPolicy);
+            }
+          });
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> conflateEvents(
+        final ConflationKey<? super E> conflationKey) {
+      checkNotNull(conflationKey);
+
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          distinctModels,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          new Producer<MessageQueue<E>>() {
+            @Nonnull
+            @Override
+            public MessageQueue<E> get() {
+              return new ConflatingMessageQueue<>(conflationKey);
+            }
+          });
+    }
+
+    @Override
+    @Nonnull
+    public MobiusLoop.Builder<M, E, F> distinctModels() {
+      return new Builder<>(
+          update,
+          effectHandler,
+          init,
+          eventSource,
+          logger,
+          true,
+          eventRunner,
+          effectRunner,
+          eventBatchSize,
+          eventQueue);
     }
 
     @Override
@@ -253,7 +493,10 @@ public final class Mobius {
           effectHandler,
           eventSource,
           checkNotNull(eventRunner.get()),
-          checkNotNull(effectRunner.get()));
+          checkNotNull(effectRunner.get()),
+          eventBatchSize,
+          checkNotNull(eventQueue.get()),
+          distinctModels);
     }
 
     private static class MyThreadFactory implements ThreadFactory {
@@ -23,11 +23,24 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
 import com.spotify.mobius.functions.Producer;
+import com.spotify.mobius.internal_util.ImmutableUtil;
+import com.spotify.mobius.runners.LoopGroup;
 import com.spotify.mobius.runners.WorkRunner;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -39,21 +52,34 @@ import javax.annotation.Nullable;
  */
 public class MobiusLoop<M, E, F> implements Disposable {
 
-  @Nonnull private final MessageDispatcher<E> eventDispatcher;
-  @Nonnull private final MessageDispatcher<F> effectDispatcher;
+  static final int DEFAULT_EVENT_BATCH_SIZE = 64;
+
+  @Nonnull private final MessageQueue<E> eventQueue;
+  @Nonnull private final MessageDispatcher<Object> eventDispatcher;
+  @Nonnull private final MessageDispatcher<?> effectDispatcher;
 
   @Nonnull private final EventProcessor<M, E, F> eventProcessor;
   @Nonnull private final Connection<F> effectConsumer;
   @Nonnull private final Disposable eventSourceDisposable;
 
-  @Nonnull
-  private final List<Consumer<M>> modelObservers =
-      Collections.synchronizedList(new LinkedList<Consumer<M>>());
+  @Nonnull private final ModelObservers<M> modelObservers = new ModelObservers<>();
+  @Nonnull private final LoopMetrics metrics;
 
-  @Nullable private volatile M mostRecentModel;
+  // events dispatched using dispatchAndAwait that haven't been processed or discarded yet
+  private final Set<AwaitedEvent> awaitedEvents =
+      Collections.newSetFromMap(new ConcurrentHashMap<AwaitedEvent, Boolean>());
 
   private volatile boolean disposed;
 
+  // set once the runners and effect handler of a disposed loop have been released; events that the
+  // effect handler emits while it is being released are dropped rather than rejected.
+  private volatile boolean released;
+
+  private final Object disposalLock = new Object();
+
+  // guarded by disposalLock; non-null once the loop has been disposed
+  @Nullable private FutureTask<Void> disposal;
+
   static <M, E, F> MobiusLoop<M, E, F> create(
       MobiusStore<M, E, F> store,
       Connectable<F, E> effectHandler,
@@ -61,12 +87,70 @@ public class MobiusLoop<M, E, F> implements Disposable {
       WorkRunner eventRunner,
       WorkRunner effectRunner) {
 
+    return create(
+        store,
+        effectHandler,
+        eventSource,
+        eventRunner,
+        effectRunner,
+        DEFAULT_EVENT_BATCH_SIZE,
+        new UnboundedMessageQueue<E>());
+  }
+
+  /**
+   * Create a loop with a specific event batch size and event queue.
+   *
+   * @param eventBatchSize the maximum number of events to process per task posted to the event
+   *     runner
+   * @param eventQueue the queue holding events until they are processed
+   */
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      EventSource<E> eventSource,
+      WorkRunner eventRunner,
+      WorkRunner effectRunner,
+      int eventBatchSize,
+      MessageQueue<E> eventQueue) {
+
+    return create(
+        store,
+        effectHandler,
+        eventSource,
+        eventRunner,
+        effectRunner,
+        eventBatchSize,
+        eventQueue,
+        false);
+  }
+
+  /**
+   * Create a loop with a specific event batch size and event queue, that may skip unchanged models.
+   *
+   * @param eventBatchSize the maximum number of events to process per task posted to the event
+   *     runner
+   * @param eventQueue the queue holding events until they are processed
+   * @param distinctModels whether to skip notifying observers of models that are identical or equal
+   *     to the previous one
+   */
+  static <M, E, F> MobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store,
+      Connectable<F, E> effectHandler,
+      EventSource<E> eventSource,
+      WorkRunner eventRunner,
+      WorkRunner effectRunner,
+      int eventBatchSize,
+      MessageQueue<E> eventQueue,
+      boolean distinctModels) {
+
     return new MobiusLoop<>(
-        new EventProcessor.Factory<>(checkNotNull(store)),
+        new EventProcessor.Factory<>(checkNotNull(store), distinctModels),
         checkNotNull(effectHandler),
         checkNotNull(eventSource),
         checkNotNull(eventRunner),
-        checkNotNull(effectRunner));
+        checkNotNull(effectRunner),
+        eventBatchSize,
+        checkNotNull(eventQueue));
   }
 
   private MobiusLoop(
@@ -74,13 +158,31 @@ public class MobiusLoop<M, E, F> implements Disposable {
       Connectable<F, E> effectHandler,
       EventSource<E> eventSource,
       WorkRunner eventRunner,
-      WorkRunner effectRunner) {
+      WorkRunner effectRunner,
+      int eventBatchSize,
+      MessageQueue<E> eventQueue) {
 
-    Consumer<E> onEventReceived =
-        new Consumer<E>() {
+    Consumer<Object> onEventReceived =
+        new Consumer<Object>() {
           @Override
-          public void accept(E event) {
-            eventProcessor.update(event);
+          public void accept(Object queued) {
+            Object message = metrics.onEventProcessing(queued);
+
+            if (!(message instanceof MobiusLoop.AwaitedEvent)) {
+              //noinspection unchecked
+              eventProcessor.update((E) message);
+              return;
+            }
+
+            AwaitedEvent awaited = (AwaitedEvent) message;
+
+            try {
+              eventProcessor.update(awaited.event);
+            } catch (RuntimeException | Error e) {
+              awaited.complete(modelObservers.latestModel(), e);
+              throw e;
+            }
+            awaited.complete(modelObservers.latestModel(), null);
           }
         };
 
@@ -92,6 +194,8 @@ public class MobiusLoop<M, E, F> implements Disposable {
               effectConsumer.accept(effect);
             } catch (Throwable t) {
               throw new ConnectionException(effect, t);
+            } finally {
+              metrics.onEffectsCompleted(1);
             }
           }
         };
@@ -100,32 +204,78 @@ public class MobiusLoop<M, E, F> implements Disposable {
         new Consumer<M>() {
           @Override
           public void accept(M model) {
-            synchronized (modelObservers) {
-              mostRecentModel = model;
-              for (Consumer<M> observer : modelObservers) {
-                observer.accept(model);
-              }
-            }
+            modelObservers.publish(model);
           }
         };
 
-    this.eventDispatcher = new MessageDispatcher<>(eventRunner, onEventReceived);
-    this.effectDispatcher = new MessageDispatcher<>(effectRunner, onEffectReceived);
-
-    this.eventProcessor = eventProcessorFactory.create(effectDispatcher, onModelChanged);
+    // all events go through a single queue with a single consumer, so only one thread at a time
+    // will touch the event processor and store. Events received before init, for instance from
+    // the effect handler or event source while connecting them below, are held in the queue until
+    // the dispatcher is started.
+    this.eventQueue = eventQueue;
+    this.metrics = new LoopMetrics(eventQueue);
+    // the queue holds both plain events and the envelopes of awaited events, applying its policy to
+    // the events in the envelopes.
+    //noinspection unchecked
+    this.eventDispatcher =
+        MessageDispatcher.paused(
+            eventRunner, onEventReceived, (MessageQueue<Object>) eventQueue, eventBatchSize);
 
     Consumer<E> eventConsumer =
         new Consumer<E>() {
           @Override
           public void accept(E event) {
+            if (disposed && !released) {
+              return;
+            }
+
             dispatchEvent(event);
           }
         };
 
+    // events sent while connecting are held in the paused event dispatcher, so it's fine to connect
+    // the effect handler before the event processor exists.
     this.effectConsumer = effectHandler.connect(eventConsumer);
+
+    Consumer<F> effectSink;
+    if (effectConsumer instanceof BatchConnection) {
+      final BatchConnection<F> batchConnection = (BatchConnection<F>) effectConsumer;
+      BatchEffectDispatcher<F> batchDispatcher =
+          new BatchEffectDispatcher<>(
+              effectRunner,
+              new BatchConnection<F>() {
+                @Override
+                public void acceptBatch(Collection<F> effects) {
+                  try {
+                    batchConnection.acceptBatch(effects);
+                  } finally {
+                    metrics.onEffectsCompleted(effects.size());
+                  }
+                }
+
+                @Override
+                public void accept(F effect) {
+                  acceptBatch(ImmutableUtil.singletonSet(effect));
+                }
+
+                @Override
+                public void dispose() {
+                  batchConnection.dispose();
+                }
+              });
+      this.effectDispatcher = batchDispatcher.dispatcher();
+      effectSink = batchDispatcher;
+    } else {
+      MessageDispatcher<F> dispatcher = new MessageDispatcher<>(effectRunner, onEffectReceived);
+      this.effectDispatcher = dispatcher;
+      effectSink = dispatcher;
+    }
+
+    this.eventProcessor = eventProcessorFactory.create(effectSink, onModelChanged);
+    metrics.setEventProcessor(eventProcessor);
     this.eventSourceDisposable = eventSource.subscribe(eventConsumer);
 
-    eventRunner.post(
+    eventDispatcher.start(
         new Runnable() {
           @Override
           public void run() {
@@ -134,16 +284,91 @@ public class MobiusLoop<M, E, F> implements Disposable {
         });
   }
 
+  /**
+   * Dispatch an event to this loop. The event is queued, and will be processed on the loop's event
+   * runner. If the loop has a bounded event queue that is full, what happens depends on the loop's
+   * {@link OverflowPolicy}.
+   *
+   * @throws IllegalStateException if the loop has been disposed
+   * @throws EventQueueFullException if the event queue is full and the overflow policy rejects the
+   *     event
+   */
   public void dispatchEvent(E event) {
-    if (disposed)
+    dispatchMessage(checkNotNull(event));
+  }
+
+  /**
+   * Dispatch an event to this loop, like {@link #dispatchEvent(Object)}, and get a {@link Future}
+   * of the model that results from it. The future is completed on the event runner, right after
+   * the event has been processed, so the model includes the changes made by the event and by any
+   * events processed before it.
+   *
+   * <p>Each call gets its own future, even if the same event object is dispatched more than once.
+   * If the update function throws, the future fails with the exception. If the event never gets
+   * processed, the future is cancelled: as soon as the overflow policy of the event queue drops the
+   * event or replaces it with a newer one, or else when the loop is disposed.
+   *
+   * @throws IllegalStateException if the loop has been disposed
+   * @throws EventQueueFullException if the event queue is full and the overflow policy rejects the
+   *     event
+   */
+  @Nonnull
+  public Future<M> dispatchAndAwait(E event) {
+    AwaitedEvent awaited = new AwaitedEvent(checkNotNull(event));
+    awaitedEvents.add(awaited);
+    dispatchMessage(awaited);
+    return awaited.future;
+  }
+
+  private void dispatchMessage(Object message) {
+    if (disposed) {
+      // an envelope may have been registered after dispose() cancelled the pending ones
+      MessageEnvelope.discard(message);
       throw new IllegalStateException(
           "This loop has already been disposed. You cannot dispatch events after disposal");
-    eventDispatcher.accept(checkNotNull(event));
+    }
+
+    Object queued = metrics.onEventDispatching(message);
+
+    try {
+      eventDispatcher.accept(queued);
+    } catch (RuntimeException e) {
+      // the queue rejected the message, so it will never be processed
+      metrics.onEventDispatchFailed(queued);
+      MessageEnvelope.discard(queued);
+      throw e;
+    }
+
+    metrics.onEventDispatched();
   }
 
   @Nullable
   public M getMostRecentModel() {
-    return mostRecentModel;
+    return modelObservers.latestModel();
+  }
+
+  /**
+   * @return the number of events that were discarded by the overflow policy of the loop's bounded
+   *     event queue, including events that were replaced by newer ones with the same conflation key
+   */
+  public long getDroppedEventCount() {
+    return eventQueue.droppedCount();
+  }
+
+  /**
+   * @return the number of events that were rejected with an {@link EventQueueFullException},
+   *     because the loop's bounded event queue was full
+   */
+  public long getRejectedEventCount() {
+    return eventQueue.rejectedCount();
+  }
+
+  /**
+   * @return a live view of the runtime metrics of this loop, such as the number of events waiting
+   *     to be processed and the number of effects in flight
+   */
+  public LoopMetrics getMetrics() {
+    return metrics;
   }
 
   /**
@@ -158,40 +383,237 @@ public class MobiusLoop<M, E, F> implements Disposable {
    * @throws IllegalStateException if the loop has been disposed
    */
   public Disposable observe(final Consumer<M> observer) {
-    synchronized (modelObservers) {
-      if (disposed)
-        throw new IllegalStateException(
-            "This loop has already been disposed. You cannot observe a disposed loop");
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
 
-      modelObservers.add(checkNotNull(observer));
+    return modelObservers.add(observer, null);
+  }
 
-      final M currentModel = mostRecentModel;
-      if (currentModel != null) {
-        // Start by emitting the most recently received model.
-        observer.accept(currentModel);
-      }
-    }
+  /**
+   * Add an observer of model changes to this loop, that is notified on the given runner rather
+   * than on the loop's event runner. This is useful for observers that take a while to handle a
+   * model, since they won't hold up the loop or other observers.
+   *
+   * <p>The observer is notified of one model at a time, in order. If new models arrive while it is
+   * busy, it is only notified of the most recent one once it is done, so a slow observer skips
+   * models rather than falling further and further behind. Like with {@link #observe(Consumer)},
+   * the observer starts by being notified of the most recent model, if there is one. The runner is
+   * not disposed by the loop.
+   *
+   * @param observer a non-null observer of model changes
+   * @param runner the runner to notify the observer on
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the observer or runner is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public Disposable observe(Consumer<M> observer, WorkRunner runner) {
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
 
-    return new Disposable() {
-      @Override
-      public void dispose() {
-        synchronized (modelObservers) {
-          modelObservers.remove(observer);
-        }
-      }
-    };
+    return modelObservers.add(observer, checkNotNull(runner));
   }
 
+  /**
+   * Add an observer of a slice of the model of this loop, for instance a single field. The selector
+   * is applied to each new model, and the observer is only notified when the value it returns isn't
+   * equal to the previous one, according to {@link Object#equals(Object)}. If {@link
+   * #getMostRecentModel()} is non-null, the observer will immediately be notified of its slice.
+   *
+   * <p>The selector is evaluated once per model for all observers that were added with the same
+   * selector instance, so to share the work, keep selectors in fields or constants rather than
+   * creating a new one for each call. Selectors are called on the loop's event runner, so they
+   * should be cheap and free of side effects; they may return null.
+   *
+   * @param selector a non-null function picking out the slice of the model to observe
+   * @param observer a non-null observer of changes to the slice
+   * @return a {@link Disposable} that can be used to stop further notifications to the observer
+   * @throws NullPointerException if the selector or observer is null
+   * @throws IllegalStateException if the loop has been disposed
+   */
+  public <T> Disposable observe(Function<M, T> selector, Consumer<T> observer) {
+    if (disposed)
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
+
+    return modelObservers.addSelector(selector, observer);
+  }
+
+  /**
+   * Dispose this loop, blocking until its runners and effect handler have been released. Disposing
+   * a runner may block for a while; for instance, the runners returned by {@link
+   * com.spotify.mobius.runners.WorkRunners} wait up to 100 ms for tasks that are still running. Use
+   * {@link #disposeAsync()} to avoid blocking the calling thread.
+   */
   @Override
   public void dispose() {
-    synchronized (modelObservers) {
-      eventDispatcher.dispose();
-      effectDispatcher.dispose();
-      effectConsumer.dispose();
+    FutureTask<Void> release = stop();
+
+    if (release != null) {
+      release.run();
+      rethrowFailure(release);
+    }
+  }
+
+  /**
+   * Dispose this loop without blocking. The loop stops processing events and effects, and stops
+   * notifying observers, before this method returns, just as if {@link #dispose()} had been called.
+   * Releasing the runners and the effect handler, which may block, is done on a shared background
+   * thread.
+   *
+   * @return a {@link Future} that completes when the runners and effect handler of the loop have
+   *     been released, and that fails if releasing them threw. If the loop has already been
+   *     disposed, this is the future from the first call to this method, or a completed one if the
+   *     loop was disposed using {@link #dispose()}.
+   */
+  @Nonnull
+  public Future<Void> disposeAsync() {
+    FutureTask<Void> release = stop();
+
+    if (release != null) {
+      Disposer.EXECUTOR.execute(release);
+      return release;
+    }
+
+    synchronized (disposalLock) {
+      return disposal;
+    }
+  }
+
+  /**
+   * Stop the loop from processing events and effects, and from notifying observers.
+   *
+   * @return a task that releases the runners and effect handler, or null if the loop had already
+   *     been stopped
+   */
+  @Nullable
+  private FutureTask<Void> stop() {
+    synchronized (disposalLock) {
+      if (disposal != null) {
+        return null;
+      }
+
+      eventDispatcher.stop();
+      effectDispatcher.stop();
       eventSourceDisposable.dispose();
-      modelObservers.clear();
+      modelObservers.close();
       disposed = true;
+
+      for (AwaitedEvent awaited : awaitedEvents) {
+        awaitedEvents.remove(awaited);
+        awaited.future.cancel(false);
+      }
+
+      disposal =
+          new FutureTask<>(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    eventDispatcher.dispose();
+                    effectDispatcher.dispose();
+                    effectConsumer.dispose();
+                  } finally {
+                    released = true;
+                  }
+                }
+              },
+              null);
+
+      return disposal;
+    }
+  }
+
+  private static void rethrowFailure(Future<Void> done) {
+    try {
+      done.get();
+    } catch (InterruptedException e) {
+      // can't happen, since the future is done
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  /**
+   * The envelope of an event dispatched using {@link #dispatchAndAwait(Object)}, with the future
+   * for its result.
+   */
+  private final class AwaitedEvent extends MessageEnvelope {
+    private final E event;
+    private final FutureTask<M> future;
+
+    // written before the future is run, which publishes them to the threads reading the future
+    @Nullable private M model;
+    @Nullable private Throwable failure;
+
+    private AwaitedEvent(E event) {
+      this.event = event;
+      this.future =
+          new FutureTask<>(
+              new Callable<M>() {
+                @Override
+                public M call() throws Exception {
+                  if (failure instanceof Exception) {
+                    throw (Exception) failure;
+                  }
+                  if (failure instanceof Error) {
+                    throw (Error) failure;
+                  }
+                  return model;
+                }
+              });
+    }
+
+    @Override
+    Object message() {
+      return event;
     }
+
+    @Override
+    void discarded() {
+      awaitedEvents.remove(this);
+      future.cancel(false);
+    }
+
+    void complete(@Nullable M model, @Nullable Throwable failure) {
+      awaitedEvents.remove(this);
+      this.model = model;
+      this.failure = failure;
+      future.run();
+    }
+  }
+
+  /** Holds the threads used by {@link #disposeAsync()}, created when first needed. */
+  private static final class Disposer {
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+    static final ExecutorService EXECUTOR =
+        Executors.newCachedThreadPool(
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = Executors.defaultThreadFactory().newThread(checkNotNull(runnable));
+
+                thread.setName(
+                    String.format(
+                        Locale.ENGLISH, "mobius-dispose-%d", threadCount.incrementAndGet()));
+                thread.setDaemon(true);
+
+                return thread;
+              }
+            });
+
+    private Disposer() {}
   }
 
   /**
@@ -247,6 +669,62 @@ public class MobiusLoop<M, E, F> implements Disposable {
      */
     @Nonnull
     Builder<M, E, F> effectRunner(Producer<WorkRunner> effectRunner);
+
+    /**
+     * @return a new {@link Builder} that gets its event and effect runners from the supplied
+     *     {@link LoopGroup}, and the same values as the current one for the other fields. Each loop
+     *     started from the builder will be pinned to one of the event threads of the group. NOTE:
+     *     Invoking this method will replace the current event and effect runners.
+     */
+    @Nonnull
+    Builder<M, E, F> loopGroup(LoopGroup loopGroup);
+
+    /**
+     * @return a new {@link Builder} with the supplied event batch size, and the same values as the
+     *     current one for the other fields. Events are queued and processed by a single task posted
+     *     to the event runner; the batch size is the maximum number of events that task handles
+     *     before yielding the runner to other work. Larger batches reduce the per-event overhead
+     *     when events arrive in bursts, smaller ones are fairer to other loops sharing the runner.
+     * @throws IllegalArgumentException if maxEventsPerRun is less than 1
+     */
+    @Nonnull
+    Builder<M, E, F> eventBatchSize(int maxEventsPerRun);
+
+    /**
+     * @return a new {@link Builder} with a bounded event queue, and the same values as the current
+     *     one for the other fields. At most {@code capacity} events can be waiting to be processed;
+     *     events dispatched while the queue is full are dealt with according to the supplied
+     *     {@link OverflowPolicy}. By default, the event queue is unbounded.
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    @Nonnull
+    Builder<M, E, F> eventQueue(int capacity, OverflowPolicy<? super E> overflowPolicy);
+
+    /**
+     * @return a new {@link Builder} that conflates events, and the same values as the current one
+     *     for the other fields. An event that has the same {@link ConflationKey} as an event that
+     *     is still waiting to be processed replaces that event, taking its place in the queue,
+     *     instead of being queued after it. This applies to all events, whether they come from the
+     *     event source, the effect handler, or {@link MobiusLoop#dispatchEvent(Object)}. Replaced
+     *     events are counted by {@link MobiusLoop#getDroppedEventCount()}. NOTE: Invoking this
+     *     method will replace a bounded event queue configured using {@link #eventQueue(int,
+     *     OverflowPolicy)} with an unbounded, conflating one.
+     */
+    @Nonnull
+    Builder<M, E, F> conflateEvents(ConflationKey<? super E> conflationKey);
+
+    /**
+     * @return a new {@link Builder} that only notifies observers of models that differ from the
+     *     previous one, and the same values as the current one for the other fields. A model
+     *     returned by an update is skipped if it is the same instance as, or {@link
+     *     Object#equals(Object) equal} to, the last model observers were notified of, so updates
+     *     that return an unchanged model don't cause observers to redo their work. Skipped models
+     *     are counted by {@link LoopMetrics#getSuppressedModelCount()} of the loop's {@link
+     *     MobiusLoop#getMetrics() metrics}. By default, observers are notified of every model
+     *     returned by an update.
+     */
+    @Nonnull
+    Builder<M, E, F> distinctModels();
   }
 
   public interface Factory<M, E, F> {
@@ -23,24 +23,76 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * The default {@link MobiusLoop.Controller}.
+ *
+ * <p>Models are rendered on the main thread runner, latest-wins: at most one render task is posted
+ * at a time, and if the loop produces models faster than they are rendered, only the most recent
+ * one is rendered once the runner gets to it. Optionally, renders can be spaced out by a minimum
+ * interval, in which case a model that arrives too soon after the previous render is held back
+ * until the interval has passed, and replaced by any newer model in the meantime.
+ */
 class MobiusLoopController<M, E, F>
     implements MobiusLoop.Controller<M, E>, ControllerActions<M, E> {
 
   private final MobiusLoop.Factory<M, E, F> loopFactory;
   private final M defaultModel;
   private final WorkRunner mainThreadRunner;
+  private final long minRenderIntervalNanos;
+
+  private final AtomicReference<M> pendingModel = new AtomicReference<>();
+  private final AtomicBoolean renderScheduled = new AtomicBoolean();
+  private final Runnable renderTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          renderLatest();
+        }
+      };
+  private final Runnable postRenderTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          mainThreadRunner.post(renderTask);
+        }
+      };
+
+  // only accessed by the render task, of which at most one is scheduled at a time
+  private boolean rendered;
+  private long lastRenderNanos;
 
   private ControllerStateBase<M, E> currentState;
 
   MobiusLoopController(
       MobiusLoop.Factory<M, E, F> loopFactory, M defaultModel, WorkRunner mainThreadRunner) {
+    this(loopFactory, defaultModel, mainThreadRunner, 0, TimeUnit.NANOSECONDS);
+  }
+
+  MobiusLoopController(
+      MobiusLoop.Factory<M, E, F> loopFactory,
+      M defaultModel,
+      WorkRunner mainThreadRunner,
+      long minRenderInterval,
+      TimeUnit unit) {
+
+    if (minRenderInterval < 0) {
+      throw new IllegalArgumentException(
+          "minRenderInterval must not be negative, was: " + minRenderInterval);
+    }
 
     this.loopFactory = checkNotNull(loopFactory);
     this.defaultModel = checkNotNull(defaultModel);
     this.mainThreadRunner = checkNotNull(mainThreadRunner);
+    this.minRenderIntervalNanos = checkNotNull(unit).toNanos(minRenderInterval);
     goToStateInit(defaultModel);
   }
 
@@ -90,13 +142,43 @@ class MobiusLoopController<M, E, F>
   }
 
   public void postUpdateView(final M model) {
-    mainThreadRunner.post(
-        new Runnable() {
-          @Override
-          public void run() {
-            updateView(model);
-          }
-        });
+    pendingModel.set(checkNotNull(model));
+    scheduleRender();
+  }
+
+  private void scheduleRender() {
+    if (renderScheduled.compareAndSet(false, true)) {
+      mainThreadRunner.post(renderTask);
+    }
+  }
+
+  private void renderLatest() {
+    if (rendered && minRenderIntervalNanos > 0) {
+      long delayNanos = lastRenderNanos + minRenderIntervalNanos - System.nanoTime();
+
+      if (delayNanos > 0) {
+        // still counts as scheduled, so models arriving in the meantime replace the pending one
+        RenderTimer.EXECUTOR.schedule(postRenderTask, delayNanos, TimeUnit.NANOSECONDS);
+        return;
+      }
+    }
+
+    try {
+      M model = pendingModel.getAndSet(null);
+
+      if (model != null) {
+        rendered = true;
+        lastRenderNanos = System.nanoTime();
+        updateView(model);
+      }
+    } finally {
+      renderScheduled.set(false);
+    }
+
+    // a model may have arrived after we took the pending one, but before the flag was cleared
+    if (pendingModel.get() != null) {
+      scheduleRender();
+    }
   }
 
   @Override
@@ -141,4 +223,23 @@ class MobiusLoopController<M, E, F>
 
     stateRunning.start();
   }
+
+  /** Holds the thread that delays renders when there is a minimum render interval. */
+  private static final class RenderTimer {
+    static final ScheduledExecutorService EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = Executors.defaultThreadFactory().newThread(checkNotNull(runnable));
+
+                thread.setName("mobius-render-timer");
+                thread.setDaemon(true);
+
+                return thread;
+              }
+            });
+
+    private RenderTimer() {}
+  }
 }
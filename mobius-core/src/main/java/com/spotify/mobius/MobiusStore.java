@@ -23,13 +23,20 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 
 import javax.annotation.Nonnull;
 
-/** Responsible for holding and updating the current model. */
+/**
+ * Responsible for holding and updating the current model.
+ *
+ * <p>Concurrency note: a store is not thread-safe, and the current model isn't shared with other
+ * threads. It must only be used by one thread at a time, with the hand-over between threads
+ * synchronised externally - in a {@link MobiusLoop}, it's only ever accessed by the single consumer
+ * of the loop's event queue.
+ */
 class MobiusStore<M, E, F> {
 
   @Nonnull private final Init<M, F> init;
   @Nonnull private final Update<M, E, F> update;
 
-  @Nonnull private volatile M currentModel;
+  @Nonnull private M currentModel;
 
   private MobiusStore(Init<M, F> init, Update<M, E, F> update, M startModel) {
     this.init = checkNotNull(init);
@@ -44,14 +51,14 @@ class MobiusStore<M, E, F> {
   }
 
   @Nonnull
-  synchronized First<M, F> init() {
+  First<M, F> init() {
     First<M, F> first = init.init(currentModel);
     currentModel = first.model();
     return first;
   }
 
   @Nonnull
-  synchronized Next<M, F> update(E event) {
+  Next<M, F> update(E event) {
     Next<M, F> next = update.update(currentModel, checkNotNull(event));
     currentModel = next.modelOrElse(currentModel);
     return next;
@@ -0,0 +1,431 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The model observers of a {@link MobiusLoop}, and the most recent model.
+ *
+ * <p>Observers are kept in a copy-on-write array, so notifying them of a new model doesn't take a
+ * lock on the list, and adding or removing an observer never waits for a notification to finish.
+ * Each observer gets every model in order, exactly once, starting with the most recent model at the
+ * time it was added; this holds even if it is added while a new model is being published.
+ *
+ * <p>An observer may be given a {@link WorkRunner} of its own. It is then notified on that runner,
+ * one model at a time, and if new models arrive faster than it handles them, it only gets the most
+ * recent one rather than building up a backlog.
+ *
+ * <p>An observer may also subscribe to a slice of the model, picked out by a selector function. All
+ * observers that use the same selector instance share a single entry in the array, which evaluates
+ * the selector once per model and only notifies its observers if the selected value isn't equal to
+ * the previous one. Publishing a model therefore costs one call per distinct selector, plus one per
+ * observer whose slice actually changed.
+ *
+ * <p>Concurrency note: {@link #publish(Object)} must only be called by one thread at a time; in a
+ * {@link MobiusLoop}, it's only called by the event processor.
+ */
+class ModelObservers<M> {
+
+  private static final Observer<?>[] NO_OBSERVERS = new Observer<?>[0];
+
+  private final Object lock = new Object();
+
+  // replaced, never modified, while holding the lock
+  @SuppressWarnings("unchecked")
+  private volatile Observer<M>[] observers = (Observer<M>[]) NO_OBSERVERS;
+
+  @Nullable private volatile Version<M> latest;
+
+  // guarded by lock
+  private final Map<Function<M, ?>, SelectorGroup<M, ?>> selectorGroups = new IdentityHashMap<>();
+
+  // guarded by lock
+  private boolean closed;
+
+  /** Notify all observers of a new model. */
+  void publish(M model) {
+    Version<M> current = latest;
+    Version<M> next = new Version<>(current == null ? 1 : current.number + 1, model);
+
+    // write the model before reading the observers; add() does the opposite, so that an observer
+    // being added either gets this model from add(), or from here, or both - in which case the
+    // version number makes it ignore the second copy.
+    latest = next;
+
+    Observer<M>[] snapshot = observers;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i].onModel(next);
+    }
+  }
+
+  @Nullable
+  M latestModel() {
+    Version<M> current = latest;
+    return current == null ? null : current.model;
+  }
+
+  /**
+   * Add an observer, notifying it of the most recent model if there is one.
+   *
+   * @param consumer the observer
+   * @param runner the runner to notify the observer on, or null to notify it directly
+   * @return a {@link Disposable} that removes the observer
+   * @throws IllegalStateException if {@link #close()} has been called
+   */
+  Disposable add(Consumer<M> consumer, @Nullable WorkRunner runner) {
+    final Observer<M> observer =
+        runner == null
+            ? new DirectObserver<>(checkNotNull(consumer))
+            : new RunnerObserver<>(checkNotNull(consumer), runner);
+
+    synchronized (lock) {
+      checkNotClosed();
+      append(observer);
+    }
+
+    Version<M> current = latest;
+    if (current != null) {
+      // Start by emitting the most recently received model.
+      observer.onModel(current);
+    }
+
+    return new Disposable() {
+      @Override
+      public void dispose() {
+        observer.dispose();
+
+        synchronized (lock) {
+          removeFromArray(observer);
+        }
+      }
+    };
+  }
+
+  /**
+   * Add an observer of a slice of the model, notifying it of the slice of the most recent model if
+   * there is one. After that, the observer is only notified when the slice changes, according to
+   * {@link Object#equals(Object)}.
+   *
+   * <p>Observers that are added with the same selector instance share its evaluation, so selectors
+   * should be kept in a field or constant rather than created for each call.
+   *
+   * @param selector a function that picks out the slice of the model to observe; it is called on
+   *     the thread that publishes the model, and may return null
+   * @param consumer the observer
+   * @return a {@link Disposable} that removes the observer
+   * @throws IllegalStateException if {@link #close()} has been called
+   */
+  <T> Disposable addSelector(Function<M, T> selector, final Consumer<T> consumer) {
+    checkNotNull(selector);
+    checkNotNull(consumer);
+
+    final SelectorGroup<M, T> group;
+    final boolean created;
+
+    synchronized (lock) {
+      checkNotClosed();
+
+      @SuppressWarnings("unchecked")
+      SelectorGroup<M, T> existing = (SelectorGroup<M, T>) selectorGroups.get(selector);
+
+      created = existing == null;
+      if (created) {
+        group = new SelectorGroup<>(selector);
+        selectorGroups.put(selector, group);
+        append(group);
+      } else {
+        group = existing;
+      }
+
+      // counted while holding the lock, so that the group can't be dropped by another observer
+      // being removed before this one has been added to it
+      group.references++;
+    }
+
+    // not done while holding the lock, as it may notify the observer, which may add or remove
+    // observers of its own
+    group.addConsumer(consumer);
+
+    Version<M> current = latest;
+    if (created && current != null) {
+      // Evaluate the selector for the most recently received model; an existing group has already
+      // given the new observer its latest value.
+      group.onModel(current);
+    }
+
+    return new Disposable() {
+      private final AtomicBoolean disposed = new AtomicBoolean();
+
+      @Override
+      public void dispose() {
+        if (!disposed.compareAndSet(false, true)) {
+          return;
+        }
+
+        group.removeConsumer(consumer);
+
+        synchronized (lock) {
+          if (--group.references == 0) {
+            group.dispose();
+            selectorGroups.remove(group.selector);
+            removeFromArray(group);
+          }
+        }
+      }
+    };
+  }
+
+  /** Remove and dispose all observers, and stop accepting new ones. */
+  void close() {
+    Observer<M>[] removed;
+
+    synchronized (lock) {
+      closed = true;
+      removed = observers;
+      observers = copyOf(removed, 0);
+      selectorGroups.clear();
+    }
+
+    for (Observer<M> observer : removed) {
+      observer.dispose();
+    }
+  }
+
+  // must be called while holding the lock
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot observe a disposed loop");
+    }
+  }
+
+  // must be called while holding the lock
+  private void append(Observer<M> observer) {
+    Observer<M>[] current = observers;
+    Observer<M>[] updated = copyOf(current, current.length + 1);
+    updated[current.length] = observer;
+    observers = updated;
+  }
+
+  // must be called while holding the lock
+  private void removeFromArray(Observer<M> observer) {
+    Observer<M>[] current = observers;
+
+    for (int i = 0; i < current.length; i++) {
+      if (current[i] == observer) {
+        Observer<M>[] updated = copyOf(current, current.length - 1);
+        System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+        observers = updated;
+        return;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <M> Observer<M>[] copyOf(Observer<M>[] observers, int length) {
+    Observer<M>[] copy = (Observer<M>[]) new Observer<?>[length];
+    System.arraycopy(observers, 0, copy, 0, Math.min(length, observers.length));
+    return copy;
+  }
+
+  /** A model, and its position in the sequence of models published. */
+  private static final class Version<M> {
+    private final long number;
+    private final M model;
+
+    private Version(long number, M model) {
+      this.number = number;
+      this.model = model;
+    }
+  }
+
+  /** An entry in the observer array, which is handed each model exactly once, in order. */
+  private abstract static class Observer<M> {
+    // guarded by this
+    private long lastVersion;
+
+    volatile boolean disposed;
+
+    final void onModel(Version<M> version) {
+      if (disposed) {
+        return;
+      }
+
+      // only contended while the observer is being added, when add() and publish() may both try
+      // to notify it
+      synchronized (this) {
+        if (version.number <= lastVersion) {
+          return;
+        }
+
+        lastVersion = version.number;
+        deliver(version.model);
+      }
+    }
+
+    abstract void deliver(M model);
+
+    void dispose() {
+      disposed = true;
+    }
+  }
+
+  /** An observer that is notified directly, on the thread that publishes the model. */
+  private static final class DirectObserver<M> extends Observer<M> {
+    @Nonnull private final Consumer<M> consumer;
+
+    DirectObserver(Consumer<M> consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    void deliver(M model) {
+      consumer.accept(model);
+    }
+  }
+
+  /**
+   * The observers of one selector. They are notified directly, on the thread that publishes the
+   * model, but only when the selected value changes.
+   */
+  private static final class SelectorGroup<M, T> extends Observer<M> {
+    private static final Consumer<?>[] NO_CONSUMERS = new Consumer<?>[0];
+
+    @Nonnull private final Function<M, T> selector;
+
+    // guarded by the lock of the enclosing ModelObservers
+    private int references;
+
+    // the following are guarded by this; the consumer array is still replaced rather than modified,
+    // so that a consumer may remove itself, or add another, while being notified
+    @SuppressWarnings("unchecked")
+    private Consumer<T>[] consumers = (Consumer<T>[]) NO_CONSUMERS;
+
+    private boolean hasValue;
+    @Nullable private T value;
+
+    SelectorGroup(Function<M, T> selector) {
+      this.selector = selector;
+    }
+
+    synchronized void addConsumer(Consumer<T> consumer) {
+      Consumer<T>[] updated = Arrays.copyOf(consumers, consumers.length + 1);
+      updated[consumers.length] = consumer;
+      consumers = updated;
+
+      if (hasValue) {
+        // Start by emitting the most recently selected value.
+        consumer.accept(value);
+      }
+    }
+
+    synchronized void removeConsumer(Consumer<T> consumer) {
+      for (int i = 0; i < consumers.length; i++) {
+        if (consumers[i] == consumer) {
+          Consumer<T>[] updated = Arrays.copyOf(consumers, consumers.length - 1);
+          System.arraycopy(consumers, i + 1, updated, i, consumers.length - i - 1);
+          consumers = updated;
+          return;
+        }
+      }
+    }
+
+    @Override
+    void deliver(M model) {
+      // called while holding the lock on this, from onModel()
+      T selected = selector.apply(model);
+
+      if (hasValue && (selected == null ? value == null : selected.equals(value))) {
+        return;
+      }
+
+      hasValue = true;
+      value = selected;
+
+      Consumer<T>[] snapshot = consumers;
+      for (int i = 0; i < snapshot.length; i++) {
+        snapshot[i].accept(selected);
+      }
+    }
+  }
+
+  /** An observer that is notified on its own runner, skipping models it hasn't caught up on. */
+  private static final class RunnerObserver<M> extends Observer<M> {
+    @Nonnull private final Consumer<M> consumer;
+    @Nonnull private final WorkRunner runner;
+    private final AtomicReference<M> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable notifyTask =
+        new Runnable() {
+          @Override
+          public void run() {
+            notifyLatest();
+          }
+        };
+
+    RunnerObserver(Consumer<M> consumer, WorkRunner runner) {
+      this.consumer = consumer;
+      this.runner = checkNotNull(runner);
+    }
+
+    @Override
+    void deliver(M model) {
+      pending.set(model);
+      schedule();
+    }
+
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        runner.post(notifyTask);
+      }
+    }
+
+    private void notifyLatest() {
+      // only one notify task is posted at a time, so the observer is notified serially and in order
+      try {
+        M model = pending.getAndSet(null);
+
+        if (model != null && !disposed) {
+          consumer.accept(model);
+        }
+      } finally {
+        scheduled.set(false);
+      }
+
+      // a model may have arrived after we took the pending one, but before the flag was cleared
+      if (pending.get() != null) {
+        schedule();
+      }
+    }
+  }
+}
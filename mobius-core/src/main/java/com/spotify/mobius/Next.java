@@ -39,6 +39,9 @@ import javax.annotation.Nullable;
 @AutoValue
 public abstract class Next<M, F> {
 
+  private static final Next<Object, Object> NO_CHANGE =
+      new AutoValue_Next<>(null, ImmutableUtil.emptySet());
+
   protected Next() {}
 
   /** Get the model of this Next, if it has one. Might return null. */
@@ -113,6 +116,15 @@ public abstract class Next<M, F> {
     return new AutoValue_Next<>(model, ImmutableUtil.immutableSet(effects));
   }
 
+  /**
+   * Create a Next that updates the model and dispatches a single effect. This avoids creating and
+   * copying a set when there is only one effect.
+   */
+  @Nonnull
+  public static <M, F> Next<M, F> next(M model, F effect) {
+    return new AutoValue_Next<>(model, ImmutableUtil.singletonSet(effect));
+  }
+
   /** Create a Next that updates the model but dispatches no effects. */
   @Nonnull
   public static <M, F> Next<M, F> next(M model) {
@@ -125,9 +137,22 @@ public abstract class Next<M, F> {
     return new AutoValue_Next<>(null, ImmutableUtil.immutableSet(effects));
   }
 
-  /** Create an empty Next that doesn't update the model or dispatch effects. */
+  /**
+   * Create a Next that doesn't update the model but dispatches a single effect. This avoids
+   * creating and copying a set when there is only one effect.
+   */
+  @Nonnull
+  public static <M, F> Next<M, F> dispatch(F effect) {
+    return new AutoValue_Next<>(null, ImmutableUtil.singletonSet(effect));
+  }
+
+  /**
+   * Create an empty Next that doesn't update the model or dispatch effects. Since such a Next
+   * carries no data, the same instance is returned every time.
+   */
   @Nonnull
   public static <M, F> Next<M, F> noChange() {
-    return new AutoValue_Next<>(null, ImmutableUtil.<F>emptySet());
+    //noinspection unchecked
+    return (Next<M, F>) NO_CHANGE;
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Decides what happens when an event is dispatched to a {@link MobiusLoop} whose bounded event
+ * queue is full. See {@link MobiusLoop.Builder#eventQueue(int, OverflowPolicy)}.
+ *
+ * @param <E> the event type
+ */
+public final class OverflowPolicy<E> {
+
+  enum Kind {
+    BLOCK,
+    DROP_OLDEST,
+    DROP_NEWEST,
+    REJECT,
+    CONFLATE_BY_KEY
+  }
+
+  private static final OverflowPolicy<Object> BLOCK = new OverflowPolicy<>(Kind.BLOCK, null);
+  private static final OverflowPolicy<Object> DROP_OLDEST =
+      new OverflowPolicy<>(Kind.DROP_OLDEST, null);
+  private static final OverflowPolicy<Object> DROP_NEWEST =
+      new OverflowPolicy<>(Kind.DROP_NEWEST, null);
+  private static final OverflowPolicy<Object> REJECT = new OverflowPolicy<>(Kind.REJECT, null);
+
+  @Nonnull private final Kind kind;
+  @Nullable private final ConflationKey<? super E> conflationKey;
+
+  private OverflowPolicy(Kind kind, @Nullable ConflationKey<? super E> conflationKey) {
+    this.kind = kind;
+    this.conflationKey = conflationKey;
+  }
+
+  /**
+   * Make the dispatching thread wait until there is room in the queue. Waiting is only possible
+   * once the loop has started processing events: events dispatched from the loop's own event
+   * thread, for instance by an effect handler running on it, or dispatched before the loop has
+   * started, for instance synchronously by an event source when it is subscribed, would deadlock
+   * the loop. Such events fail fast with an {@link EventQueueFullException} instead.
+   */
+  @Nonnull
+  public static <E> OverflowPolicy<E> block() {
+    //noinspection unchecked
+    return (OverflowPolicy<E>) BLOCK;
+  }
+
+  /** Discard the oldest pending event to make room for the new one. */
+  @Nonnull
+  public static <E> OverflowPolicy<E> dropOldest() {
+    //noinspection unchecked
+    return (OverflowPolicy<E>) DROP_OLDEST;
+  }
+
+  /** Discard the new event, keeping the ones already pending. */
+  @Nonnull
+  public static <E> OverflowPolicy<E> dropNewest() {
+    //noinspection unchecked
+    return (OverflowPolicy<E>) DROP_NEWEST;
+  }
+
+  /** Discard the new event and throw an {@link EventQueueFullException} to the dispatcher. */
+  @Nonnull
+  public static <E> OverflowPolicy<E> reject() {
+    //noinspection unchecked
+    return (OverflowPolicy<E>) REJECT;
+  }
+
+  /**
+   * Replace a pending event that has the same {@link ConflationKey} as the new one. If there is no
+   * such event, or the new event has no key, the oldest pending event is discarded instead.
+   *
+   * <p>Unlike {@link MobiusLoop.Builder#conflateEvents(ConflationKey)}, this only conflates events
+   * when the queue is full, and looking for a pending event with the same key is linear in the
+   * capacity of the queue.
+   */
+  @Nonnull
+  public static <E> OverflowPolicy<E> conflateByKey(ConflationKey<? super E> conflationKey) {
+    return new OverflowPolicy<>(Kind.CONFLATE_BY_KEY, checkNotNull(conflationKey));
+  }
+
+  @Nonnull
+  Kind kind() {
+    return kind;
+  }
+
+  @Nullable
+  Object conflationKeyOf(E event) {
+    if (conflationKey == null) {
+      throw new IllegalStateException(kind + " policy has no conflation key");
+    }
+
+    return conflationKey.of(event);
+  }
+
+  @Override
+  public String toString() {
+    return "OverflowPolicy{" + kind + "}";
+  }
+}
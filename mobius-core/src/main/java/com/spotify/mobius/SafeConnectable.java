@@ -24,12 +24,18 @@ import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
 import com.spotify.mobius.disposables.CompositeDisposable;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nonnull;
 
 /**
  * A {@link Connectable} that ensures that an inner {@link Connection} doesn't emit or receive any
  * values after being disposed.
  *
+ * <p>The returned connection doesn't serialise values itself, so several threads may send values
+ * to the inner connection at the same time. Disposing waits for effects that are being handled
+ * before disposing the inner connection, and any events they lead to are discarded.
+ *
  * <p>This only acts as a safeguard, you still need to make sure that the Connectable disposes of
  * resources correctly.
  */
@@ -50,12 +56,12 @@ class SafeConnectable<F, E> implements Connectable<F, E> {
     final Disposable disposable = CompositeDisposable.from(safeEventConsumer, effectConsumer);
     return new Connection<F>() {
       @Override
-      public synchronized void accept(F effect) {
+      public void accept(F effect) {
         effectConsumer.accept(effect);
       }
 
       @Override
-      public synchronized void dispose() {
+      public void dispose() {
         disposable.dispose();
       }
     };
@@ -63,46 +69,77 @@ class SafeConnectable<F, E> implements Connectable<F, E> {
 
   private static class SafeEffectConsumer<F> implements Connection<F> {
     private final Connection<F> actual;
-    private boolean disposed;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean disposed = new AtomicBoolean(false);
 
     private SafeEffectConsumer(Connection<F> actual) {
       this.actual = actual;
     }
 
     @Override
-    public synchronized void accept(F effect) {
-      if (disposed) {
-        return;
+    public void accept(F effect) {
+      // effects may be handled concurrently, but not while dispose is in progress
+      lock.readLock().lock();
+      try {
+        if (disposed.get()) {
+          return;
+        }
+        actual.accept(effect);
+      } finally {
+        lock.readLock().unlock();
       }
-      actual.accept(effect);
     }
 
     @Override
-    public synchronized void dispose() {
-      disposed = true;
+    public void dispose() {
+      if (!disposed.compareAndSet(false, true)) {
+        return;
+      }
+
+      // wait for effects that are being handled, unless this thread is handling one, in which case
+      // waiting would deadlock
+      if (lock.getReadHoldCount() == 0) {
+        lock.writeLock().lock();
+        lock.writeLock().unlock();
+      }
+
       actual.dispose();
     }
   }
 
   private static class SafeConsumer<E> implements Connection<E> {
     private final Consumer<E> actual;
-    private boolean disposed;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean disposed;
 
     private SafeConsumer(Consumer<E> actual) {
       this.actual = actual;
     }
 
     @Override
-    public synchronized void accept(E value) {
-      if (disposed) {
-        return;
+    public void accept(E value) {
+      // values may be emitted concurrently, but not while dispose is in progress
+      lock.readLock().lock();
+      try {
+        if (disposed) {
+          return;
+        }
+        actual.accept(value);
+      } finally {
+        lock.readLock().unlock();
       }
-      actual.accept(value);
     }
 
     @Override
-    public synchronized void dispose() {
+    public void dispose() {
       disposed = true;
+
+      // wait for values that are being emitted, unless this thread is emitting one, in which case
+      // waiting would deadlock
+      if (lock.getReadHoldCount() == 0) {
+        lock.writeLock().lock();
+        lock.writeLock().unlock();
+      }
     }
   }
 }
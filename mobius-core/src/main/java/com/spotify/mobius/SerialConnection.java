@@ -0,0 +1,115 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection that passes values to a delegate connection one at a time, without making the
+ * threads that send them wait for each other.
+ *
+ * <p>Values are queued, and whichever thread finds the delegate idle takes ownership of it and
+ * delivers pending values until the queue is empty; other threads just queue their value and
+ * return. This means that a value may be delivered on a different thread than the one that sent
+ * it, and that an exception thrown by the delegate is rethrown to the thread that happened to be
+ * delivering, once it has delivered the remaining values.
+ *
+ * <p>Disposing is serialised with delivery too: pending values are discarded, and the delegate is
+ * disposed as soon as it isn't handling a value.
+ */
+class SerialConnection<F> implements Connection<F> {
+
+  private final Connection<F> actual;
+  private final Queue<F> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean busy = new AtomicBoolean(false);
+
+  private volatile boolean disposed;
+
+  // only written by the thread that has set 'busy'
+  private volatile boolean actualDisposed;
+
+  SerialConnection(Connection<F> actual) {
+    this.actual = checkNotNull(actual);
+  }
+
+  @Override
+  public void accept(F value) {
+    if (disposed) {
+      return;
+    }
+
+    pending.offer(value);
+    drain();
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    drain();
+  }
+
+  private void drain() {
+    Throwable firstError = null;
+
+    while (busy.compareAndSet(false, true)) {
+      try {
+        F value;
+
+        while (!disposed && (value = pending.poll()) != null) {
+          try {
+            actual.accept(value);
+          } catch (RuntimeException | Error e) {
+            if (firstError == null) {
+              firstError = e;
+            }
+          }
+        }
+
+        if (disposed) {
+          pending.clear();
+
+          if (!actualDisposed) {
+            actualDisposed = true;
+            actual.dispose();
+          }
+        }
+      } finally {
+        busy.set(false);
+      }
+
+      // a value or a dispose may have arrived after the last check, but before 'busy' was cleared,
+      // in which case the thread that sent it has left it for us
+      if (pending.isEmpty() && (!disposed || actualDisposed)) {
+        break;
+      }
+    }
+
+    if (firstError instanceof Error) {
+      throw (Error) firstError;
+    }
+    if (firstError != null) {
+      throw (RuntimeException) firstError;
+    }
+  }
+}
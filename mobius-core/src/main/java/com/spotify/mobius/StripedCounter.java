@@ -0,0 +1,77 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can increment at once without contending on a single memory
+ * location, in the manner of Java 8's {@code LongAdder}.
+ *
+ * <p>The count is spread over a fixed number of cells, each on its own cache line, and a thread
+ * always adds to the cell picked by its id. Reading the count sums all cells, so it's slower than
+ * adding to it, and may miss additions that happen while it is being read.
+ */
+final class StripedCounter {
+
+  // longs per cache line; cells are this far apart so that they don't share a line
+  private static final int PADDING = 8;
+
+  private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  void increment() {
+    add(1);
+  }
+
+  void add(long delta) {
+    cells.getAndAdd(cellIndex(), delta);
+  }
+
+  long sum() {
+    long sum = 0;
+
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.get(i * PADDING);
+    }
+
+    return sum;
+  }
+
+  private static int cellIndex() {
+    // spread consecutive thread ids over the cells
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+
+    return (hash & (STRIPES - 1)) * PADDING;
+  }
+
+  /** @return the smallest power of two that is at least the number of processors, at most 16 */
+  private static int stripes(int processors) {
+    int stripes = 1;
+
+    while (stripes < processors && stripes < 16) {
+      stripes <<= 1;
+    }
+
+    return stripes;
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nonnull;
+
+/**
+ * A loop that runs entirely on the thread that calls it, for using Mobius logic to handle a
+ * request in a server, for instance.
+ *
+ * <p>Each call to {@link #runToQuiescence(Object)} processes the event, hands the resulting effects
+ * to the effect handler, processes the events that the effect handler emits while doing so, and so
+ * on, until there is nothing left to do. It then returns the resulting model. Events and effects
+ * are trampolined through local queues rather than handled recursively, so long chains of effects
+ * and events don't grow the stack, and there are no thread hand-overs at all. The loop is started
+ * the same way, running the effects of {@link First} to quiescence before {@link
+ * Builder#startFrom(Object)} returns.
+ *
+ * <p>Effect handlers that emit events on other threads, for instance after some asynchronous work,
+ * are supported, but their events are only processed during the next call to {@link
+ * #runToQuiescence(Object)}.
+ *
+ * <p>If the update function or effect handler throws, the exception is rethrown to the caller of
+ * {@link #runToQuiescence(Object)}, and any events and effects that were still waiting are dropped.
+ * The loop can still be used afterwards.
+ *
+ * <p>Concurrency note: a synchronous loop is not thread-safe. It must only be run and disposed by
+ * one thread at a time, although its effect handler may emit events from any thread.
+ */
+public final class SynchronousMobiusLoop<M, E, F> implements Disposable {
+
+  @Nonnull private final EventProcessor<M, E, F> eventProcessor;
+  @Nonnull private final Connection<F> effectConnection;
+
+  // effect handlers may emit events from other threads
+  private final Queue<E> events = new ConcurrentLinkedQueue<>();
+
+  // effects are only emitted by the event processor, on the thread running the loop
+  private final ArrayDeque<F> effects = new ArrayDeque<>();
+
+  private volatile M model;
+  private boolean running;
+  private volatile boolean disposed;
+
+  private SynchronousMobiusLoop(MobiusStore<M, E, F> store, Connectable<F, E> effectHandler) {
+    this.effectConnection =
+        effectHandler.connect(
+            new Consumer<E>() {
+              @Override
+              public void accept(E event) {
+                if (disposed) {
+                  throw new IllegalStateException(
+                      "This loop has already been disposed. You cannot dispatch events after "
+                          + "disposal");
+                }
+
+                events.add(checkNotNull(event));
+              }
+            });
+
+    this.eventProcessor =
+        new EventProcessor.Factory<>(store)
+            .create(
+                new Consumer<F>() {
+                  @Override
+                  public void accept(F effect) {
+                    effects.add(effect);
+                  }
+                },
+                new Consumer<M>() {
+                  @Override
+                  public void accept(M newModel) {
+                    model = newModel;
+                  }
+                });
+  }
+
+  static <M, E, F> SynchronousMobiusLoop<M, E, F> create(
+      MobiusStore<M, E, F> store, Connectable<F, E> effectHandler) {
+    SynchronousMobiusLoop<M, E, F> loop =
+        new SynchronousMobiusLoop<>(checkNotNull(store), checkNotNull(effectHandler));
+
+    boolean started = false;
+    try {
+      loop.start();
+      started = true;
+    } finally {
+      if (!started) {
+        loop.dispose();
+      }
+    }
+
+    return loop;
+  }
+
+  private void start() {
+    running = true;
+    boolean quiescent = false;
+
+    try {
+      eventProcessor.init();
+      drain();
+      quiescent = true;
+    } finally {
+      finishRun(quiescent);
+    }
+  }
+
+  /**
+   * Process an event, and the effects and events that follow from it, on the calling thread. Any
+   * events that the effect handler emitted from other threads since the last call are processed
+   * first.
+   *
+   * @param event the event to process
+   * @return the model once there are no more events or effects to process
+   * @throws IllegalStateException if the loop has been disposed, or if this method is called from
+   *     the loop's own effect handler
+   */
+  @Nonnull
+  public M runToQuiescence(E event) {
+    checkNotNull(event);
+
+    if (disposed) {
+      throw new IllegalStateException(
+          "This loop has already been disposed. You cannot dispatch events after disposal");
+    }
+    if (running) {
+      throw new IllegalStateException(
+          "This loop is already running. You cannot run it from its own effect handler");
+    }
+
+    running = true;
+    boolean quiescent = false;
+
+    try {
+      events.add(event);
+      drain();
+      quiescent = true;
+    } finally {
+      finishRun(quiescent);
+    }
+
+    return model;
+  }
+
+  /** @return the current model of the loop */
+  @Nonnull
+  public M getModel() {
+    return model;
+  }
+
+  @Override
+  public void dispose() {
+    if (disposed) {
+      return;
+    }
+
+    disposed = true;
+    effects.clear();
+    events.clear();
+    effectConnection.dispose();
+  }
+
+  private void drain() {
+    while (!disposed) {
+      // handle all effects of a Next before the next event, like a loop with immediate runners
+      F effect = effects.poll();
+      if (effect != null) {
+        handleEffect(effect);
+        continue;
+      }
+
+      E event = events.poll();
+      if (event == null) {
+        return;
+      }
+
+      eventProcessor.update(event);
+    }
+  }
+
+  private void handleEffect(F effect) {
+    try {
+      effectConnection.accept(effect);
+    } catch (Throwable t) {
+      throw new ConnectionException(effect, t);
+    }
+  }
+
+  private void finishRun(boolean quiescent) {
+    running = false;
+
+    if (!quiescent) {
+      effects.clear();
+      events.clear();
+    }
+  }
+
+  /**
+   * Configures and starts a {@link SynchronousMobiusLoop}. Instances are immutable, and safe to
+   * share between threads, so a single builder can be used to start a loop for each request.
+   *
+   * @param <M> the model type
+   * @param <E> the event type
+   * @param <F> the effect type
+   */
+  public static final class Builder<M, E, F> {
+    @Nonnull private final Update<M, E, F> update;
+    @Nonnull private final Connectable<F, E> effectHandler;
+    @Nonnull private final Init<M, F> init;
+    @Nonnull private final MobiusLoop.Logger<M, E, F> logger;
+
+    Builder(
+        Update<M, E, F> update,
+        Connectable<F, E> effectHandler,
+        Init<M, F> init,
+        MobiusLoop.Logger<M, E, F> logger) {
+      this.update = checkNotNull(update);
+      this.effectHandler = checkNotNull(effectHandler);
+      this.init = checkNotNull(init);
+      this.logger = checkNotNull(logger);
+    }
+
+    /**
+     * @return a new {@link Builder} with the supplied {@link Init}, and the same values as the
+     *     current one for the other fields.
+     */
+    @Nonnull
+    public Builder<M, E, F> init(Init<M, F> init) {
+      return new Builder<>(update, effectHandler, init, logger);
+    }
+
+    /**
+     * @return a new {@link Builder} with the supplied logger, and the same values as the current
+     *     one for the other fields.
+     */
+    @Nonnull
+    public Builder<M, E, F> logger(MobiusLoop.Logger<M, E, F> logger) {
+      return new Builder<>(update, effectHandler, init, logger);
+    }
+
+    /**
+     * Start a loop from the given model, running the effects of its {@link First} to quiescence on
+     * the calling thread.
+     *
+     * @param startModel the model that the loop should start from
+     * @return the started loop
+     */
+    @Nonnull
+    public SynchronousMobiusLoop<M, E, F> startFrom(M startModel) {
+      LoggingInit<M, F> loggingInit = new LoggingInit<>(init, logger);
+      LoggingUpdate<M, E, F> loggingUpdate = new LoggingUpdate<>(update, logger);
+
+      return create(
+          MobiusStore.create(loggingInit, loggingUpdate, checkNotNull(startModel)), effectHandler);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageQueue} without a capacity limit, which never drops or rejects messages until it
+ * is disposed.
+ *
+ * <p>Since every event of a loop goes through this queue, it avoids allocating a node per message:
+ * messages are stored in fixed-size array chunks that are linked together, so that a new chunk is
+ * only allocated every {@link #CHUNK_SIZE} messages. Producers claim slots in the last chunk with
+ * an atomic increment, so they never block or retry, except when a chunk is full and the next one
+ * needs to be linked in. The consumer reads the slots in order, and leaves chunks behind for
+ * garbage collection once it has read all of their slots.
+ */
+class UnboundedMessageQueue<M> implements MessageQueue<M> {
+
+  static final int CHUNK_SIZE = 128;
+
+  // the chunk that producers claim slots in. It is replaced once full, but a producer may still see
+  // the previous chunk for a while, in which case it'll find it full and move on.
+  private final AtomicReference<Chunk<M>> tail;
+
+  // the chunk that the consumer reads from; only accessed by the single consumer.
+  private Chunk<M> head;
+
+  // the number of messages taken by the consumer, which is the only thread writing it
+  private final AtomicLong polled = new AtomicLong(0);
+  private final AtomicLong dropped = new AtomicLong(0);
+
+  private volatile boolean disposed;
+
+  UnboundedMessageQueue() {
+    Chunk<M> first = new Chunk<>(0);
+    head = first;
+    tail = new AtomicReference<>(first);
+  }
+
+  @Override
+  public void offer(M message, boolean mayBlock) {
+    checkNotNull(message);
+
+    if (disposed) {
+      dropped.incrementAndGet();
+      MessageEnvelope.discard(message);
+      return;
+    }
+
+    while (true) {
+      Chunk<M> chunk = tail.get();
+      int index = chunk.claimed.getAndIncrement();
+
+      if (index < CHUNK_SIZE) {
+        chunk.slots.set(index, message);
+        return;
+      }
+
+      // the chunk is full; link in the next one, or use the one some other producer linked in
+      Chunk<M> next = chunk.next.get();
+
+      if (next == null) {
+        Chunk<M> created = new Chunk<>(chunk.base + CHUNK_SIZE);
+        next = chunk.next.compareAndSet(null, created) ? created : chunk.next.get();
+      }
+
+      tail.compareAndSet(chunk, next);
+    }
+  }
+
+  @Nullable
+  @Override
+  public M poll() {
+    if (disposed) {
+      return null;
+    }
+
+    Chunk<M> chunk = head;
+
+    if (chunk.consumed == CHUNK_SIZE) {
+      Chunk<M> next = chunk.next.get();
+
+      if (next == null) {
+        return null;
+      }
+
+      head = chunk = next;
+    }
+
+    int index = chunk.consumed;
+    M message = chunk.slots.get(index);
+
+    // a null slot means that the queue is empty, or that a producer has claimed the slot but not
+    // yet stored its message; either way, that producer hasn't returned from offer yet, so it will
+    // make sure the message gets delivered.
+    if (message == null) {
+      return null;
+    }
+
+    // don't keep delivered messages reachable until the whole chunk has been read
+    chunk.slots.lazySet(index, null);
+    chunk.consumed = index + 1;
+    polled.lazySet(chunk.base + index + 1);
+
+    return message;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    if (disposed) {
+      return true;
+    }
+
+    Chunk<M> chunk = head;
+    int index = chunk.consumed;
+
+    if (index == CHUNK_SIZE) {
+      chunk = chunk.next.get();
+      index = 0;
+    }
+
+    return chunk == null || chunk.slots.get(index) == null;
+  }
+
+  @Override
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public long rejectedCount() {
+    return 0;
+  }
+
+  @Override
+  public void dispose() {
+    if (disposed) {
+      return;
+    }
+
+    disposed = true;
+
+    // pending messages are counted as dropped, so that the counts still add up to the number of
+    // messages offered. They are left in their slots rather than taken out, since the consumer may
+    // still be polling, and only it may take messages.
+    dropped.addAndGet(Math.max(0, claimedCount() - polled.get()));
+  }
+
+  // the number of slots claimed by producers, including any whose message hasn't been stored yet
+  private long claimedCount() {
+    Chunk<M> chunk = tail.get();
+
+    for (Chunk<M> next = chunk.next.get(); next != null; next = chunk.next.get()) {
+      chunk = next;
+    }
+
+    return chunk.base + Math.min(chunk.claimed.get(), CHUNK_SIZE);
+  }
+
+  private static final class Chunk<M> {
+    private final AtomicReferenceArray<M> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+    private final AtomicInteger claimed = new AtomicInteger(0);
+    private final AtomicReference<Chunk<M>> next = new AtomicReference<>();
+
+    // the number of slots in the chunks before this one
+    private final long base;
+
+    // only accessed by the consumer
+    private int consumed;
+
+    private Chunk(long base) {
+      this.base = base;
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.internal_util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * Immutable sets for the handful of elements that effect sets usually contain. Sets of one or two
+ * elements keep them in fields and slightly larger sets keep them in an array, so creating one
+ * costs at most two small objects, and no hashing is needed. Iteration order is the order in which
+ * the elements were supplied, and elements can be read by index using {@link #get(int)}.
+ *
+ * <p>Lookups are linear scans, which is why sets with more than {@link #MAX_COMPACT_SIZE} elements
+ * are normally backed by a regular hash set instead. The exceptions are {@link #ordered(Object[])}
+ * and {@link #orderedDistinct(Object[])}, which never hash their elements. The former doesn't
+ * compare them either, so it is really a sequence: it keeps duplicates, and is only a proper set if
+ * the elements are distinct.
+ *
+ * <p>NOT FOR EXTERNAL USE; this class is not a part of the Mobius API and backwards-incompatible
+ * changes may happen between releases.
+ */
+public abstract class CompactSet<T> extends AbstractSet<T> {
+
+  static final int MAX_COMPACT_SIZE = 8;
+
+  private CompactSet() {}
+
+  /**
+   * Create an immutable set of the supplied items, which must be non-null and distinct. The array
+   * may be kept by the returned set, so the caller must not modify it afterwards.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Set<T> ofDistinct(Object[] items) {
+    switch (items.length) {
+      case 0:
+        return Collections.emptySet();
+      case 1:
+        return new Single<>((T) items[0]);
+      case 2:
+        return new Pair<>((T) items[0], (T) items[1]);
+      default:
+        if (items.length <= MAX_COMPACT_SIZE) {
+          return new ArraySet<>(items);
+        }
+
+        Set<T> result = new LinkedHashSet<>(Arrays.asList((T[]) items));
+        return Collections.unmodifiableSet(result);
+    }
+  }
+
+  /**
+   * Create an immutable set of the supplied non-null items, dropping any duplicates. The array may
+   * be modified or kept by the returned set, so the caller must not use it afterwards.
+   */
+  static <T> Set<T> of(Object[] items) {
+    if (items.length > MAX_COMPACT_SIZE) {
+      // the hash set will take care of duplicates
+      return ofDistinct(items);
+    }
+
+    return ofDistinct(distinct(items));
+  }
+
+  /**
+   * Create an immutable sequence of the supplied non-null items in the given order, regardless of
+   * its size and without calling {@link Object#hashCode()} or {@link Object#equals(Object)} on
+   * them. Duplicates are kept, so the result is only a proper set if the items are distinct. The
+   * array may be kept by the returned set, so the caller must not modify it afterwards.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Set<T> ordered(Object[] items) {
+    switch (items.length) {
+      case 0:
+        return Collections.emptySet();
+      case 1:
+        return new Single<>((T) items[0]);
+      case 2:
+        return new Pair<>((T) items[0], (T) items[1]);
+      default:
+        return new ArraySet<>(items);
+    }
+  }
+
+  /**
+   * Create an immutable set of the supplied non-null items in the given order, regardless of its
+   * size, dropping duplicates using only {@link Object#equals(Object)}, so {@link
+   * Object#hashCode()} is never called. The array may be modified or kept by the returned set, so
+   * the caller must not use it afterwards.
+   */
+  static <T> Set<T> orderedDistinct(Object[] items) {
+    return ordered(distinct(items));
+  }
+
+  /**
+   * Removes duplicates from the array, using only {@link Object#equals(Object)}, and returns the
+   * distinct items in their original order. The array may be modified and returned.
+   */
+  static Object[] distinct(Object[] items) {
+    int distinct = 0;
+
+    for (Object item : items) {
+      if (indexOf(items, distinct, item) < 0) {
+        items[distinct++] = item;
+      }
+    }
+
+    return distinct == items.length ? items : Arrays.copyOf(items, distinct);
+  }
+
+  private static int indexOf(Object[] items, int length, Object item) {
+    for (int i = 0; i < length; i++) {
+      if (items[i].equals(item)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the element at the given position in the iteration order of this set. This allows
+   * iterating over the set without creating an iterator.
+   *
+   * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+   */
+  public abstract T get(int index);
+
+  @Override
+  public boolean contains(Object o) {
+    if (o == null) {
+      return false;
+    }
+
+    for (int i = 0; i < size(); i++) {
+      if (get(i).equals(o)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 0;
+
+    for (int i = 0; i < size(); i++) {
+      hashCode += get(i).hashCode();
+    }
+
+    return hashCode;
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < size();
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        return get(next++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static final class Single<T> extends CompactSet<T> {
+    private final T element;
+
+    private Single(T element) {
+      this.element = element;
+    }
+
+    @Override
+    public T get(int index) {
+      if (index != 0) {
+        throw new IndexOutOfBoundsException(String.valueOf(index));
+      }
+
+      return element;
+    }
+
+    @Override
+    public int size() {
+      return 1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return element.equals(o);
+    }
+  }
+
+  private static final class Pair<T> extends CompactSet<T> {
+    private final T first;
+    private final T second;
+
+    private Pair(T first, T second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public T get(int index) {
+      switch (index) {
+        case 0:
+          return first;
+        case 1:
+          return second;
+        default:
+          throw new IndexOutOfBoundsException(String.valueOf(index));
+      }
+    }
+
+    @Override
+    public int size() {
+      return 2;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return first.equals(o) || second.equals(o);
+    }
+  }
+
+  private static final class ArraySet<T> extends CompactSet<T> {
+    private final Object[] elements;
+
+    private ArraySet(Object[] elements) {
+      this.elements = elements;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+      return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+      return elements.length;
+    }
+  }
+}
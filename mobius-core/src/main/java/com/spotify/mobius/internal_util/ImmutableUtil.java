@@ -20,6 +20,7 @@
 package com.spotify.mobius.internal_util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -42,16 +43,56 @@ public final class ImmutableUtil {
   public static <T> Set<T> setOf(T... items) {
     Preconditions.checkArrayNoNulls(items);
 
-    Set<T> result = new HashSet<>(items.length);
-    Collections.addAll(result, items);
+    return CompactSet.of(Arrays.copyOf(items, items.length, Object[].class));
+  }
 
-    return Collections.unmodifiableSet(result);
+  /**
+   * Returns an immutable set of the items in the given order, without calling hashCode() or
+   * equals() on any of them. Duplicates are kept.
+   */
+  @SafeVarargs
+  public static <T> Set<T> orderedSet(T... items) {
+    Preconditions.checkArrayNoNulls(items);
+
+    return CompactSet.ordered(Arrays.copyOf(items, items.length, Object[].class));
   }
 
+  /**
+   * Returns an immutable set of the distinct items in the given order. Duplicates are found using
+   * equals() only, without calling hashCode().
+   */
+  @SafeVarargs
+  public static <T> Set<T> orderedDistinctSet(T... items) {
+    Preconditions.checkArrayNoNulls(items);
+
+    return CompactSet.orderedDistinct(Arrays.copyOf(items, items.length, Object[].class));
+  }
+
+  public static <T> Set<T> singletonSet(T item) {
+    return CompactSet.ofDistinct(new Object[] {Preconditions.checkNotNull(item)});
+  }
+
+  /**
+   * Returns an immutable copy of the set, preserving its iteration order and dropping items that
+   * are equal to an earlier one. Sets previously returned from this class are immutable already,
+   * and are returned as they are; this includes sets from {@link #orderedSet(Object[])}, which keep
+   * their duplicates.
+   */
   public static <T> Set<T> immutableSet(Set<? extends T> set) {
-    Preconditions.checkIterableNoNulls(set);
-    Set<T> result = new HashSet<>(set);
-    return Collections.unmodifiableSet(result);
+    if (set instanceof CompactSet) {
+      //noinspection unchecked
+      return (Set<T>) set;
+    }
+
+    if (Preconditions.checkNotNull(set).isEmpty()) {
+      return emptySet();
+    }
+
+    // toArray() gives us a right-sized copy in a single pass over the set, leaving only the array
+    // to be checked for nulls. The set may consider items distinct that are equal to each other,
+    // like an identity-based set does, so duplicates still need to be dropped.
+    Object[] items = Preconditions.checkArrayNoNulls(set.toArray());
+    return CompactSet.of(items);
   }
 
   public static <T> List<T> immutableList(Iterable<? extends T> collection) {
@@ -26,7 +26,14 @@ import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** A {@link WorkRunner} implementation that is backed by an {@link ExecutorService}. */
+/**
+ * A {@link WorkRunner} implementation that is backed by an {@link ExecutorService}.
+ *
+ * <p>Work is handed to the executor using {@link ExecutorService#execute(Runnable)}, which unlike
+ * {@code submit} doesn't wrap every runnable in a future. An exception thrown by a runnable is
+ * logged and otherwise swallowed, just like it would be if it was stored in a future that nobody
+ * looks at, so it doesn't take down the executor's thread.
+ */
 public class ExecutorServiceWorkRunner implements WorkRunner {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorServiceWorkRunner.class);
@@ -38,8 +45,18 @@ public class ExecutorServiceWorkRunner implements WorkRunner {
   }
 
   @Override
-  public void post(Runnable runnable) {
-    service.submit(runnable);
+  public void post(final Runnable runnable) {
+    service.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              runnable.run();
+            } catch (Throwable t) {
+              LOGGER.error("Runnable posted to ExecutorServiceWorkRunner threw an exception", t);
+            }
+          }
+        });
   }
 
   @Override
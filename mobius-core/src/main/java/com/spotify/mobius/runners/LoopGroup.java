@@ -0,0 +1,202 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.runners;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.disposables.Disposable;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed set of event threads that can be shared by any number of {@link
+ * com.spotify.mobius.MobiusLoop}s, together with a shared executor for their effects.
+ *
+ * <p>Each call to {@link #nextEventRunner()} returns a new {@link WorkRunner} that is pinned to one
+ * of the event threads, chosen round-robin. A loop that uses such a runner will have all of its
+ * events processed serially on that thread for its entire lifetime, while the thread itself is
+ * shared with other loops. Similarly, {@link #effectRunner()} returns a {@link WorkRunner} that
+ * runs effects on the shared effect executor.
+ *
+ * <p>Disposing a runner obtained from the group only stops that runner from accepting and running
+ * work; the underlying threads are only shut down when the group itself is disposed.
+ */
+public final class LoopGroup implements Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoopGroup.class);
+
+  private static final AtomicInteger groupCount = new AtomicInteger(0);
+
+  @Nonnull private final ExecutorService[] eventExecutors;
+  @Nonnull private final ExecutorService effectExecutor;
+  private final AtomicInteger nextEventExecutor = new AtomicInteger(0);
+
+  private LoopGroup(ExecutorService[] eventExecutors, ExecutorService effectExecutor) {
+    this.eventExecutors = eventExecutors;
+    this.effectExecutor = effectExecutor;
+  }
+
+  /**
+   * Create a group with the given number of event threads, sharing a cached thread pool for
+   * effects.
+   *
+   * @param eventThreads the number of event threads in the group
+   * @return a new loop group
+   * @throws IllegalArgumentException if eventThreads is less than 1
+   */
+  @Nonnull
+  public static LoopGroup create(int eventThreads) {
+    int groupId = groupCount.incrementAndGet();
+    return create(
+        eventThreads,
+        groupId,
+        Executors.newCachedThreadPool(new GroupThreadFactory(groupId, "effect")));
+  }
+
+  /**
+   * Create a group with the given number of event threads, using the supplied executor for the
+   * effects of all loops in the group. The executor will be shut down when the group is disposed.
+   *
+   * @param eventThreads the number of event threads in the group
+   * @param effectExecutor the executor that effects should run on
+   * @return a new loop group
+   * @throws IllegalArgumentException if eventThreads is less than 1
+   */
+  @Nonnull
+  public static LoopGroup create(int eventThreads, ExecutorService effectExecutor) {
+    return create(eventThreads, groupCount.incrementAndGet(), checkNotNull(effectExecutor));
+  }
+
+  private static LoopGroup create(int eventThreads, int groupId, ExecutorService effectExecutor) {
+    if (eventThreads < 1) {
+      throw new IllegalArgumentException("eventThreads must be at least 1, was: " + eventThreads);
+    }
+
+    ThreadFactory threadFactory = new GroupThreadFactory(groupId, "event");
+    ExecutorService[] eventExecutors = new ExecutorService[eventThreads];
+
+    for (int i = 0; i < eventThreads; i++) {
+      eventExecutors[i] = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    return new LoopGroup(eventExecutors, effectExecutor);
+  }
+
+  /** @return the number of event threads in this group */
+  public int eventThreadCount() {
+    return eventExecutors.length;
+  }
+
+  /**
+   * Create a new event runner that is pinned to one of the event threads of this group. The threads
+   * are handed out round-robin, so consecutive calls will spread loops evenly over the group.
+   *
+   * @return a new {@link WorkRunner} that runs all its work serially on a single thread
+   */
+  @Nonnull
+  public WorkRunner nextEventRunner() {
+    int index = (nextEventExecutor.getAndIncrement() & Integer.MAX_VALUE) % eventExecutors.length;
+    return new SharedExecutorWorkRunner(eventExecutors[index]);
+  }
+
+  /**
+   * Create a new effect runner that runs its work on the shared effect executor of this group.
+   *
+   * @return a new {@link WorkRunner} for effects
+   */
+  @Nonnull
+  public WorkRunner effectRunner() {
+    return new SharedExecutorWorkRunner(effectExecutor);
+  }
+
+  /**
+   * Shuts down all threads of this group. Any loops still using the group will stop processing
+   * events and effects.
+   */
+  @Override
+  public void dispose() {
+    for (ExecutorService executor : eventExecutors) {
+      executor.shutdownNow();
+    }
+    effectExecutor.shutdownNow();
+  }
+
+  /**
+   * A {@link WorkRunner} that submits work to an executor it doesn't own. Disposing it stops
+   * further work from being run, including work that has been posted but hasn't started yet, but
+   * leaves the executor running.
+   */
+  private static class SharedExecutorWorkRunner implements WorkRunner {
+    private final ExecutorService executor;
+    private volatile boolean disposed;
+
+    private SharedExecutorWorkRunner(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public void post(final Runnable runnable) {
+      if (disposed) return;
+
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (disposed) return;
+
+              try {
+                runnable.run();
+              } catch (Throwable t) {
+                LOGGER.error("Runnable posted to LoopGroup work runner threw an exception", t);
+              }
+            }
+          });
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+    }
+  }
+
+  private static class GroupThreadFactory implements ThreadFactory {
+    private final String namePrefix;
+    private final AtomicInteger threadCount = new AtomicInteger(0);
+
+    private GroupThreadFactory(int groupId, String kind) {
+      this.namePrefix = String.format(Locale.ENGLISH, "mobius-group-%d-%s-", groupId, kind);
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = Executors.defaultThreadFactory().newThread(checkNotNull(runnable));
+
+      thread.setName(namePrefix + threadCount.incrementAndGet());
+
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.functions.BiConsumer;
+import com.spotify.mobius.functions.Consumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchingConnectableTest {
+
+  private BlockingQueue<List<String>> batches;
+  private List<String> failedValues;
+  private List<Throwable> uncaughtExceptions;
+  private ScheduledExecutorService scheduler;
+  private Connection<String> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    batches = new LinkedBlockingQueue<>();
+    failedValues = new CopyOnWriteArrayList<>();
+    uncaughtExceptions = new CopyOnWriteArrayList<>();
+    scheduler =
+        Executors.newScheduledThreadPool(
+            2,
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setUncaughtExceptionHandler(
+                    new Thread.UncaughtExceptionHandler() {
+                      @Override
+                      public void uncaughtException(Thread t, Throwable e) {
+                        uncaughtExceptions.add(e);
+                      }
+                    });
+                return thread;
+              }
+            });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (connection != null) {
+      connection.dispose();
+    }
+
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void shouldDeliverBatchWhenItIsFull() throws Exception {
+    connection = connect(3, 10_000);
+
+    connection.accept("a");
+    connection.accept("b");
+    connection.accept("c");
+    connection.accept("d");
+
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("a", "b", "c"));
+    assertThat(batches.poll(50, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  public void shouldDeliverBatchWhenDelayExpires() throws Exception {
+    connection = connect(100, 20);
+
+    connection.accept("a");
+    connection.accept("b");
+
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("a", "b"));
+
+    connection.accept("c");
+
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("c"));
+  }
+
+  @Test
+  public void shouldDeliverRemainingValuesOnDispose() throws Exception {
+    connection = connect(100, 10_000);
+
+    connection.accept("a");
+    connection.accept("b");
+    connection.dispose();
+
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("a", "b"));
+  }
+
+  @Test
+  public void shouldIgnoreValuesAfterDispose() throws Exception {
+    connection = connect(1, 10_000);
+
+    connection.dispose();
+    connection.accept("a");
+
+    assertThat(batches.poll(50, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  public void shouldReportEachValueOfFailedBatch() throws Exception {
+    connection = failingConnectable().connect(value -> {}, recordingErrorHandler());
+
+    connection.accept("a");
+    connection.accept("b");
+    nextBatch();
+
+    assertThat(waitForFailures(2)).containsExactly("a", "b");
+  }
+
+  @Test
+  public void shouldReportEachValueEvenIfTheErrorHandlerThrows() throws Exception {
+    connection =
+        failingConnectable()
+            .connect(
+                value -> {},
+                new BiConsumer<String, Throwable>() {
+                  @Override
+                  public void accept(String value, Throwable throwable) {
+                    failedValues.add(value);
+                    throw new IllegalStateException("fatal: " + value);
+                  }
+                });
+
+    connection.accept("a");
+    connection.accept("b");
+    nextBatch();
+
+    assertThat(waitForFailures(2)).containsExactly("a", "b");
+    assertThat(waitForUncaughtExceptions(2)).hasSize(2);
+  }
+
+  @Test
+  public void shouldSurfaceFailuresWithDefaultErrorHandler() throws Exception {
+    connection = failingConnectable().connect(value -> {});
+
+    connection.accept("a");
+    connection.accept("b");
+    nextBatch();
+
+    assertThat(waitForUncaughtExceptions(2)).hasSize(2);
+    for (Throwable throwable : uncaughtExceptions) {
+      assertThat(throwable).isInstanceOf(ConnectionException.class);
+    }
+  }
+
+  @Test
+  public void shouldKeepDeliveringAfterConsumerThrowsError() throws Exception {
+    connection =
+        new BatchingConnectable<String, Integer>(
+                1,
+                10_000,
+                scheduler,
+                new Consumer<List<String>>() {
+                  @Override
+                  public void accept(List<String> batch) {
+                    batches.add(batch);
+
+                    if (batch.contains("a")) {
+                      throw new AssertionError("expected");
+                    }
+                  }
+                })
+            .connect(value -> {});
+
+    connection.accept("a");
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("a"));
+
+    connection.accept("b");
+    assertThat(nextBatch()).isEqualTo(Arrays.asList("b"));
+  }
+
+  @Test
+  public void shouldDeliverBatchesOfEachConnectionInOrderOnSharedScheduler() throws Exception {
+    final List<String> delivered = new CopyOnWriteArrayList<>();
+    final AtomicInteger concurrentBatches = new AtomicInteger(0);
+    final AtomicInteger maxConcurrentBatches = new AtomicInteger(0);
+
+    connection =
+        new BatchingConnectable<String, Integer>(
+                1,
+                10_000,
+                scheduler,
+                new Consumer<List<String>>() {
+                  @Override
+                  public void accept(List<String> batch) {
+                    int concurrent = concurrentBatches.incrementAndGet();
+                    maxConcurrentBatches.accumulateAndGet(concurrent, Math::max);
+                    delivered.addAll(batch);
+                    concurrentBatches.decrementAndGet();
+                  }
+                })
+            .connect(value -> {});
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add("v" + i);
+      connection.accept("v" + i);
+    }
+
+    long deadline = System.currentTimeMillis() + 1000;
+    while (delivered.size() < expected.size() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    assertThat(delivered).isEqualTo(expected);
+    assertThat(maxConcurrentBatches.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRejectInvalidArguments() throws Exception {
+    assertThatThrownBy(() -> connect(0, 10)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> connect(1, -1)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Connection<String> connect(int maxBatchSize, long maxDelayMs) {
+    return new BatchingConnectable<String, Integer>(
+            maxBatchSize,
+            maxDelayMs,
+            scheduler,
+            new Consumer<List<String>>() {
+              @Override
+              public void accept(List<String> batch) {
+                batches.add(batch);
+              }
+            })
+        .connect(value -> {}, recordingErrorHandler());
+  }
+
+  private BatchingConnectable<String, Integer> failingConnectable() {
+    return new BatchingConnectable<>(
+        2,
+        10_000,
+        scheduler,
+        new Consumer<List<String>>() {
+          @Override
+          public void accept(List<String> batch) {
+            batches.add(batch);
+            throw new RuntimeException("batch failed");
+          }
+        });
+  }
+
+  private BiConsumer<String, Throwable> recordingErrorHandler() {
+    return new BiConsumer<String, Throwable>() {
+      @Override
+      public void accept(String value, Throwable throwable) {
+        failedValues.add(value);
+      }
+    };
+  }
+
+  private List<String> nextBatch() throws InterruptedException {
+    List<String> batch = batches.poll(1, TimeUnit.SECONDS);
+    assertThat(batch).isNotNull();
+    return batch;
+  }
+
+  private List<String> waitForFailures(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 1000;
+
+    while (failedValues.size() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    return failedValues;
+  }
+
+  private List<Throwable> waitForUncaughtExceptions(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 1000;
+
+    while (uncaughtExceptions.size() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+
+    return uncaughtExceptions;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class BoundedMessageQueueTest {
+
+  private BoundedMessageQueue<String> underTest;
+
+  @Test
+  public void shouldAcceptMessagesUpToCapacity() throws Exception {
+    underTest = new BoundedMessageQueue<>(3, OverflowPolicy.<String>reject());
+
+    underTest.offer("a", true);
+    underTest.offer("b", true);
+    underTest.offer("c", true);
+
+    assertThat(drain()).containsExactly("a", "b", "c");
+    assertThat(underTest.droppedCount()).isEqualTo(0L);
+    assertThat(underTest.rejectedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldMakeRoomWhenMessagesArePolled() throws Exception {
+    underTest = new BoundedMessageQueue<>(2, OverflowPolicy.<String>reject());
+
+    underTest.offer("a", true);
+    underTest.offer("b", true);
+    underTest.poll();
+    underTest.offer("c", true);
+
+    assertThat(drain()).containsExactly("b", "c");
+  }
+
+  @Test
+  public void dropOldestShouldDiscardHeadOfQueue() throws Exception {
+    underTest = new BoundedMessageQueue<>(2, OverflowPolicy.<String>dropOldest());
+
+    underTest.offer("a", true);
+    underTest.offer("b", true);
+    underTest.offer("c", true);
+
+    assertThat(drain()).containsExactly("b", "c");
+    assertThat(underTest.droppedCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void dropNewestShouldDiscardNewMessage() throws Exception {
+    underTest = new BoundedMessageQueue<>(2, OverflowPolicy.<String>dropNewest());
+
+    underTest.offer("a", true);
+    underTest.offer("b", true);
+    underTest.offer("c", true);
+    underTest.offer("d", true);
+
+    assertThat(drain()).containsExactly("a", "b");
+    assertThat(underTest.droppedCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void rejectShouldThrowAndCount() throws Exception {
+    underTest = new BoundedMessageQueue<>(1, OverflowPolicy.<String>reject());
+
+    underTest.offer("a", true);
+
+    assertThatThrownBy(() -> underTest.offer("b", true))
+        .isInstanceOf(EventQueueFullException.class);
+    assertThat(underTest.rejectedCount()).isEqualTo(1L);
+    assertThat(drain()).containsExactly("a");
+  }
+
+  @Test
+  public void conflateByKeyShouldReplacePendingMessageWithSameKey() throws Exception {
+    underTest =
+        new BoundedMessageQueue<>(2, OverflowPolicy.<String>conflateByKey(s -> s.charAt(0)));
+
+    underTest.offer("a1", true);
+    underTest.offer("b1", true);
+    underTest.offer("a2", true);
+
+    assertThat(drain()).containsExactly("b1", "a2");
+    assertThat(underTest.droppedCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void conflateByKeyShouldDropOldestIfNoKeyMatches() throws Exception {
+    underTest =
+        new BoundedMessageQueue<>(2, OverflowPolicy.<String>conflateByKey(s -> s.charAt(0)));
+
+    underTest.offer("a1", true);
+    underTest.offer("b1", true);
+    underTest.offer("c1", true);
+
+    assertThat(drain()).containsExactly("b1", "c1");
+    assertThat(underTest.droppedCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void blockShouldWaitUntilThereIsRoom() throws Exception {
+    underTest = new BoundedMessageQueue<>(1, OverflowPolicy.<String>block());
+    underTest.offer("a", true);
+
+    CountDownLatch offered = new CountDownLatch(1);
+    Thread producer =
+        new Thread(
+            () -> {
+              underTest.offer("b", true);
+              offered.countDown();
+            });
+    producer.start();
+
+    assertThat(offered.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    assertThat(underTest.poll()).isEqualTo("a");
+    assertThat(offered.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(drain()).containsExactly("b");
+  }
+
+  @Test
+  public void blockShouldFailFastWhenCallerMayNotBlock() throws Exception {
+    underTest = new BoundedMessageQueue<>(1, OverflowPolicy.<String>block());
+
+    underTest.offer("a", true);
+
+    assertThatThrownBy(() -> underTest.offer("b", false))
+        .isInstanceOf(EventQueueFullException.class);
+    assertThat(underTest.rejectedCount()).isEqualTo(1L);
+    assertThat(drain()).containsExactly("a");
+  }
+
+  @Test
+  public void disposeShouldReleaseBlockedProducers() throws Exception {
+    underTest = new BoundedMessageQueue<>(1, OverflowPolicy.<String>block());
+    underTest.offer("a", true);
+
+    CountDownLatch offered = new CountDownLatch(1);
+    new Thread(
+            () -> {
+              underTest.offer("b", true);
+              offered.countDown();
+            })
+        .start();
+
+    assertThat(offered.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    underTest.dispose();
+
+    assertThat(offered.await(1, TimeUnit.SECONDS)).isTrue();
+    // both the pending message and the one that was waiting for room are discarded
+    assertThat(underTest.droppedCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void shouldRejectInvalidCapacity() throws Exception {
+    assertThatThrownBy(() -> new BoundedMessageQueue<>(0, OverflowPolicy.<String>block()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private List<String> drain() {
+    List<String> messages = new ArrayList<>();
+    String message;
+
+    while ((message = underTest.poll()) != null) {
+      messages.add(message);
+    }
+
+    return messages;
+  }
+}
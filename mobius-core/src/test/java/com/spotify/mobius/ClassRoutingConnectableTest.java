@@ -0,0 +1,125 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.mobius.functions.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassRoutingConnectableTest {
+
+  private TestConsumer<String> consumer;
+  private AtomicInteger disposeCount;
+  private AtomicReference<Throwable> handledError;
+  private Connection<Object> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    consumer = new TestConsumer<>();
+    disposeCount = new AtomicInteger();
+    handledError = new AtomicReference<>();
+
+    ClassRoutingConnectable<Object, String> connectable =
+        new ClassRoutingConnectable<>(
+            ImmutableList.<ClassRoutingConnectable.Route<?, String>>of(
+                new ClassRoutingConnectable.Route<>(
+                    String.class, prefixing("string"), EffectHandlerOptions.serial()),
+                new ClassRoutingConnectable.Route<>(
+                    Number.class, prefixing("number"), EffectHandlerOptions.threadSafe())),
+            (value, throwable) -> handledError.set(throwable));
+
+    connection = connectable.connect(consumer);
+  }
+
+  @Test
+  public void shouldRouteValuesToConnectableForTheirClass() throws Exception {
+    connection.accept("hey");
+    connection.accept(7L);
+    connection.accept("ho");
+
+    assertThat(consumer.received).containsExactly("string:hey", "number:7", "string:ho");
+  }
+
+  @Test
+  public void shouldRouteSubclassesOfHandledClasses() throws Exception {
+    connection.accept(3);
+    connection.accept(4.5);
+
+    assertThat(consumer.received).containsExactly("number:3", "number:4.5");
+  }
+
+  @Test
+  public void shouldThrowForUnhandledClasses() throws Exception {
+    final StringBuilder stringBuilder = new StringBuilder("hi");
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> connection.accept(stringBuilder))
+          .isInstanceOf(UnknownEffectException.class)
+          .hasFieldOrPropertyWithValue("effect", stringBuilder);
+    }
+
+    assertThat(consumer.received).isEmpty();
+  }
+
+  @Test
+  public void shouldSendExceptionsToErrorHandler() throws Exception {
+    connection.accept("crash");
+
+    assertThat(handledError.get()).isInstanceOf(RuntimeException.class);
+  }
+
+  @Test
+  public void shouldDisposeAllConnections() throws Exception {
+    connection.dispose();
+
+    assertThat(disposeCount.get()).isEqualTo(2);
+  }
+
+  private <G> Connectable<G, String> prefixing(final String prefix) {
+    return new Connectable<G, String>() {
+      @Nonnull
+      @Override
+      public Connection<G> connect(final Consumer<String> output) {
+        return new Connection<G>() {
+          @Override
+          public void accept(G value) {
+            if ("crash".equals(value)) {
+              throw new RuntimeException("crashing!");
+            }
+
+            output.accept(prefix + ":" + value);
+          }
+
+          @Override
+          public void dispose() {
+            disposeCount.incrementAndGet();
+          }
+        };
+      }
+    };
+  }
+}
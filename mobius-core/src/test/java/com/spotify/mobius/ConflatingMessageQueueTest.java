@@ -0,0 +1,182 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConflatingMessageQueueTest {
+
+  private ConflatingMessageQueue<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    // messages starting with a letter are keyed by that letter, all others are never conflated
+    underTest =
+        new ConflatingMessageQueue<>(
+            message -> Character.isLetter(message.charAt(0)) ? message.charAt(0) : null);
+  }
+
+  @Test
+  public void shouldQueueMessagesWithDifferentKeys() throws Exception {
+    underTest.offer("a1", true);
+    underTest.offer("b1", true);
+    underTest.offer("c1", true);
+
+    assertThat(drain()).containsExactly("a1", "b1", "c1");
+    assertThat(underTest.droppedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldReplacePendingMessageWithSameKeyInPlace() throws Exception {
+    underTest.offer("a1", true);
+    underTest.offer("b1", true);
+    underTest.offer("a2", true);
+    underTest.offer("a3", true);
+
+    assertThat(drain()).containsExactly("a3", "b1");
+    assertThat(underTest.droppedCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void shouldNotConflateMessagesWithoutKey() throws Exception {
+    underTest.offer("1", true);
+    underTest.offer("1", true);
+
+    assertThat(drain()).containsExactly("1", "1");
+  }
+
+  @Test
+  public void shouldQueueMessageWithSameKeyAfterPendingOneWasPolled() throws Exception {
+    underTest.offer("a1", true);
+    assertThat(underTest.poll()).isEqualTo("a1");
+
+    underTest.offer("a2", true);
+
+    assertThat(drain()).containsExactly("a2");
+    assertThat(underTest.droppedCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldDiscardPendingMessagesOnDispose() throws Exception {
+    underTest.offer("a1", true);
+    underTest.dispose();
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.poll()).isNull();
+  }
+
+  @Test
+  public void shouldNotQueueMessagesOfferedAfterDispose() throws Exception {
+    underTest.dispose();
+    underTest.offer("a1", true);
+    underTest.offer("1", true);
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.poll()).isNull();
+  }
+
+  @Test
+  public void shouldCountMessagesDiscardedOnDisposeAsDropped() throws Exception {
+    underTest.offer("a1", true);
+    underTest.offer("b1", true);
+    underTest.offer("1", true);
+    underTest.offer("b2", true);
+    assertThat(underTest.poll()).isEqualTo("a1");
+
+    underTest.dispose();
+    underTest.offer("c1", true);
+
+    // b1 was replaced, b2 and 1 were pending, and c1 came too late
+    assertThat(underTest.droppedCount()).isEqualTo(4L);
+  }
+
+  @Test
+  public void shouldAlwaysDeliverLatestMessagePerKeyUnderConcurrency() throws Exception {
+    ExecutorService producers = Executors.newFixedThreadPool(4);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (char key = 'a'; key < 'e'; key++) {
+      final char producerKey = key;
+      futures.add(
+          producers.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i <= 10000; i++) {
+                  underTest.offer(producerKey + Integer.toString(i), true);
+                }
+                return null;
+              }));
+    }
+
+    Map<Character, Integer> lastSeen = new HashMap<>();
+    start.countDown();
+
+    while (!allDone(futures) || !underTest.isEmpty()) {
+      String message = underTest.poll();
+
+      if (message != null) {
+        int value = Integer.parseInt(message.substring(1));
+        Integer previous = lastSeen.put(message.charAt(0), value);
+
+        assertThat(previous == null || previous < value).isTrue();
+      }
+    }
+
+    producers.shutdown();
+
+    Map<Character, Integer> expected = new HashMap<>();
+    for (char key = 'a'; key < 'e'; key++) {
+      expected.put(key, 10000);
+    }
+    assertThat(lastSeen).isEqualTo(expected);
+  }
+
+  private static boolean allDone(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<String> drain() {
+    List<String> messages = new ArrayList<>();
+    String message;
+
+    while ((message = underTest.poll()) != null) {
+      messages.add(message);
+    }
+
+    return messages;
+  }
+}
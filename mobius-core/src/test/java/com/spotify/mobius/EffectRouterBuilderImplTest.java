@@ -25,8 +25,23 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import com.spotify.mobius.functions.BiConsumer;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.runners.ExecutorServiceWorkRunner;
+import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.test.SimpleConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import org.junit.Before;
@@ -138,6 +153,87 @@ public class EffectRouterBuilderImplTest {
                 }));
   }
 
+  @Test
+  public void shouldSupportBatchConsumers() throws Exception {
+    final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<>();
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    Connection<Effect> connection =
+        builder
+            .addBatchConsumer(
+                EffectWithParameter.class,
+                2,
+                10_000,
+                scheduler,
+                new Consumer<List<EffectWithParameter>>() {
+                  @Override
+                  public void accept(List<EffectWithParameter> effects) {
+                    List<String> params = new ArrayList<>();
+                    for (EffectWithParameter effect : effects) {
+                      params.add(effect.param);
+                    }
+                    batches.add(params);
+                  }
+                })
+            .build()
+            .connect(eventConsumer);
+
+    connection.accept(new EffectWithParameter("a"));
+    connection.accept(new EffectWithParameter("b"));
+    connection.accept(new EffectWithParameter("c"));
+
+    assertThat(batches.poll(1, TimeUnit.SECONDS)).isEqualTo(Arrays.asList("a", "b"));
+
+    connection.dispose();
+
+    assertThat(batches.poll(1, TimeUnit.SECONDS)).isEqualTo(Arrays.asList("c"));
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void batchConsumersShouldUseErrorHandlerFromWhenRouterWasBuilt() throws Exception {
+    final BlockingQueue<String> failures = new LinkedBlockingQueue<>();
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    builder
+        .addBatchConsumer(
+            EffectWithParameter.class,
+            1,
+            10_000,
+            scheduler,
+            new Consumer<List<EffectWithParameter>>() {
+              @Override
+              public void accept(List<EffectWithParameter> effects) {
+                throw new RuntimeException("batch failed");
+              }
+            })
+        .withFatalErrorHandler(
+            new BiConsumer<Effect, Throwable>() {
+              @Override
+              public void accept(Effect effect, Throwable throwable) {
+                failures.add("built with: " + ((EffectWithParameter) effect).param);
+              }
+            });
+
+    Connectable<Effect, Event> router = builder.build();
+
+    builder.withFatalErrorHandler(
+        new BiConsumer<Effect, Throwable>() {
+          @Override
+          public void accept(Effect effect, Throwable throwable) {
+            failures.add("set after build: " + ((EffectWithParameter) effect).param);
+          }
+        });
+
+    Connection<Effect> connection = router.connect(eventConsumer);
+    connection.accept(new EffectWithParameter("a"));
+
+    assertThat(failures.poll(1, TimeUnit.SECONDS)).isEqualTo("built with: a");
+
+    connection.dispose();
+    scheduler.shutdown();
+  }
+
   @Test
   public void shouldPreventSubclassCollisionsAtConfigTime() throws Exception {
     builder.addRunnable(SimpleEffect.class, DUMMY_ACTION);
@@ -246,6 +342,135 @@ public class EffectRouterBuilderImplTest {
     assertThat(actualThrowable.get()).isEqualTo(exception);
   }
 
+  @Test
+  public void shouldRunEffectsForThreadSafeHandlersConcurrently() throws Exception {
+    final CountDownLatch bothRunning = new CountDownLatch(2);
+
+    final Connection<Effect> connection =
+        builder
+            .addConsumer(
+                SimpleEffect.class,
+                value -> {
+                  bothRunning.countDown();
+                  try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+                },
+                EffectHandlerOptions.threadSafe())
+            .build()
+            .connect(eventConsumer);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> first = executor.submit(() -> connection.accept(new SimpleEffect()));
+      Future<?> second = executor.submit(() -> connection.accept(new SimpleEffect()));
+
+      first.get(5, TimeUnit.SECONDS);
+      second.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    // each effect waits for the other one to have started, so they can only both complete quickly
+    // if they ran at the same time
+    assertThat(bothRunning.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldLimitConcurrencyAndRunOnHandlerRunner() throws Exception {
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final List<Thread> threads = new CopyOnWriteArrayList<>();
+    final CountDownLatch handled = new CountDownLatch(50);
+    WorkRunner handlerRunner = new ExecutorServiceWorkRunner(Executors.newFixedThreadPool(4));
+
+    try {
+      Connection<Effect> connection =
+          builder
+              .addRunnable(
+                  SimpleEffect.class,
+                  () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    threads.add(Thread.currentThread());
+                    try {
+                      Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                      throw new RuntimeException(e);
+                    }
+                    active.decrementAndGet();
+                    handled.countDown();
+                  },
+                  EffectHandlerOptions.concurrent(2).runOn(handlerRunner))
+              .build()
+              .connect(eventConsumer);
+
+      for (int i = 0; i < 50; i++) {
+        connection.accept(new SimpleEffect());
+      }
+
+      assertThat(handled.await(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      handlerRunner.dispose();
+    }
+
+    assertThat(maxActive.get()).isBetween(1, 2);
+    assertThat(threads).doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldRejectInvalidConcurrencyLimit() throws Exception {
+    assertThatThrownBy(() -> EffectHandlerOptions.concurrent(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldRunEffectsForSerialHandlersOneAtATimeWithoutBlockingOtherHandlers()
+      throws Exception {
+    final CountDownLatch firstStarted = new CountDownLatch(1);
+    final CountDownLatch releaseFirst = new CountDownLatch(1);
+    final List<String> handled = new CopyOnWriteArrayList<>();
+
+    final Connection<Effect> connection =
+        builder
+            .addConsumer(
+                EffectWithParameter.class,
+                value -> {
+                  if (value.param.equals("first")) {
+                    firstStarted.countDown();
+                    try {
+                      releaseFirst.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                      throw new RuntimeException(e);
+                    }
+                  }
+                  handled.add(value.param);
+                })
+            .addRunnable(SimpleEffect.class, () -> handled.add("simple"))
+            .build()
+            .connect(eventConsumer);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> first = executor.submit(() -> connection.accept(new EffectWithParameter("first")));
+      assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+      // neither of these must wait for the busy handler
+      connection.accept(new EffectWithParameter("second"));
+      connection.accept(new SimpleEffect());
+
+      assertThat(handled).containsExactly("simple");
+
+      releaseFirst.countDown();
+      first.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(handled).containsExactly("simple", "first", "second");
+  }
+
   private Connectable<SimpleEffect, Event> connectableThrowing(final Exception exception) {
     return new Connectable<SimpleEffect, Event>() {
       @Nonnull
@@ -19,6 +19,7 @@
  */
 package com.spotify.mobius;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.google.common.collect.Sets;
@@ -31,6 +32,9 @@ import org.junit.Test;
 
 public class EventProcessorTest {
 
+  private static final int SAME_MODEL = 100;
+  private static final int EQUAL_MODEL = 101;
+
   private EventProcessor<String, Integer, Long> underTest;
   private RecordingConsumer<Long> effectConsumer;
   private RecordingConsumer<String> stateConsumer;
@@ -72,6 +76,20 @@ public class EventProcessorTest {
     effectConsumer.assertValuesInAnyOrder(10L, 20L, 30L);
   }
 
+  @Test
+  public void shouldEmitOrderedEffectsInOrderIncludingDuplicates() throws Exception {
+    effectConsumer.clearValues();
+    underTest.update(-1);
+    effectConsumer.assertValues(30L, 10L, 30L, 20L);
+  }
+
+  @Test
+  public void shouldEmitOrderedDistinctEffectsInOrderWithoutDuplicates() throws Exception {
+    effectConsumer.clearValues();
+    underTest.update(-2);
+    effectConsumer.assertValues(30L, 10L, 20L);
+  }
+
   @Test
   public void shouldEmitStateDuringInit() throws Exception {
     stateConsumer.assertValues("init!");
@@ -83,17 +101,12 @@ public class EventProcessorTest {
   }
 
   @Test
-  public void shouldQueueUpdatesReceivedBeforeInit() throws Exception {
+  public void shouldDisallowUpdatesBeforeInit() throws Exception {
     stateConsumer.clearValues();
     underTest = new EventProcessor<>(createStore(), effectConsumer, stateConsumer);
 
-    underTest.update(1);
-    underTest.update(2);
-    underTest.update(3);
-
-    underTest.init();
-
-    stateConsumer.assertValues("init!", "init!->1", "init!->1->2", "init!->1->2->3");
+    assertThatThrownBy(() -> underTest.update(1)).isInstanceOf(IllegalStateException.class);
+    stateConsumer.assertValues();
   }
 
   @Test
@@ -101,6 +114,32 @@ public class EventProcessorTest {
     assertThatThrownBy(() -> underTest.init()).isInstanceOf(IllegalStateException.class);
   }
 
+  @Test
+  public void shouldEmitUnchangedModelsByDefault() throws Exception {
+    underTest.update(SAME_MODEL);
+    underTest.update(EQUAL_MODEL);
+
+    stateConsumer.assertValues("init!", "init!", "init!");
+    assertThat(underTest.emittedModelCount()).isEqualTo(3);
+    assertThat(underTest.suppressedModelCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldSuppressIdenticalAndEqualModelsIfDistinct() throws Exception {
+    stateConsumer.clearValues();
+    underTest = new EventProcessor<>(createStore(), effectConsumer, stateConsumer, true);
+    underTest.init();
+
+    underTest.update(SAME_MODEL);
+    underTest.update(EQUAL_MODEL);
+    underTest.update(1);
+    underTest.update(EQUAL_MODEL);
+
+    stateConsumer.assertValues("init!", "init!->1");
+    assertThat(underTest.emittedModelCount()).isEqualTo(2);
+    assertThat(underTest.suppressedModelCount()).isEqualTo(3);
+  }
+
   private MobiusStore<String, Integer, Long> createStore() {
     return MobiusStore.create(
         new Init<String, Long>() {
@@ -118,6 +157,22 @@ public class EventProcessorTest {
               return Next.noChange();
             }
 
+            if (event == SAME_MODEL) {
+              return Next.next(model);
+            }
+
+            if (event == EQUAL_MODEL) {
+              return Next.next(new String(model));
+            }
+
+            if (event == -1) {
+              return Next.dispatch(Effects.ordered(30L, 10L, 30L, 20L));
+            }
+
+            if (event == -2) {
+              return Next.dispatch(Effects.orderedDistinct(30L, 10L, 30L, 20L));
+            }
+
             Set<Long> effects = Sets.newHashSet();
             for (int i = 0; i < event; i++) {
               effects.add(10L * (i + 1));
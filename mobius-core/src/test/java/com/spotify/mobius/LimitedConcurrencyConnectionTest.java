@@ -0,0 +1,268 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.runners.ExecutorServiceWorkRunner;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LimitedConcurrencyConnectionTest {
+
+  private WorkRunner runner;
+  private List<String> received;
+  private AtomicBoolean disposed;
+
+  @Before
+  public void setUp() throws Exception {
+    runner = new ExecutorServiceWorkRunner(Executors.newFixedThreadPool(8));
+    received = new CopyOnWriteArrayList<>();
+    disposed = new AtomicBoolean(false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    runner.dispose();
+  }
+
+  @Test
+  public void shouldNeverHandleMoreThanMaxConcurrencyValuesAtOnce() throws Exception {
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final CountDownLatch delivered = new CountDownLatch(200);
+
+    LimitedConcurrencyConnection<Integer> underTest =
+        new LimitedConcurrencyConnection<>(
+            new Connection<Integer>() {
+              @Override
+              public void accept(Integer value) {
+                int current = active.incrementAndGet();
+                maxActive.accumulateAndGet(current, Math::max);
+                try {
+                  Thread.sleep(1);
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+                active.decrementAndGet();
+                delivered.countDown();
+              }
+
+              @Override
+              public void dispose() {}
+            },
+            runner,
+            3);
+
+    for (int i = 0; i < 200; i++) {
+      underTest.accept(i);
+    }
+
+    assertThat(delivered.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxActive.get()).isBetween(1, 3);
+  }
+
+  @Test
+  public void shouldQueueValuesUntilASlotIsFree() throws Exception {
+    final CountDownLatch firstStarted = new CountDownLatch(1);
+    final CountDownLatch releaseFirst = new CountDownLatch(1);
+    final CountDownLatch allDelivered = new CountDownLatch(3);
+
+    LimitedConcurrencyConnection<String> underTest =
+        new LimitedConcurrencyConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                if (value.equals("a")) {
+                  firstStarted.countDown();
+                  try {
+                    releaseFirst.await(5, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+                }
+                received.add(value);
+                allDelivered.countDown();
+              }
+
+              @Override
+              public void dispose() {}
+            },
+            runner,
+            1);
+
+    underTest.accept("a");
+    assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    underTest.accept("b");
+    underTest.accept("c");
+
+    Thread.sleep(50);
+    assertThat(received).isEmpty();
+
+    releaseFirst.countDown();
+
+    assertThat(allDelivered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(received).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  public void shouldHandleValuesOnTheSuppliedRunner() throws Exception {
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    final CountDownLatch delivered = new CountDownLatch(1);
+
+    new LimitedConcurrencyConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                thread.set(Thread.currentThread());
+                delivered.countDown();
+              }
+
+              @Override
+              public void dispose() {}
+            },
+            runner,
+            2)
+        .accept("a");
+
+    assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(thread.get()).isNotSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldKeepHandlingValuesAfterDelegateThrows() throws Exception {
+    final RuntimeException exception = new RuntimeException("crashing!");
+
+    LimitedConcurrencyConnection<String> underTest =
+        new LimitedConcurrencyConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                if (value.equals("crash")) {
+                  throw exception;
+                }
+                received.add(value);
+              }
+
+              @Override
+              public void dispose() {}
+            },
+            null,
+            1);
+
+    assertThatThrownBy(() -> underTest.accept("crash")).isSameAs(exception);
+    underTest.accept("a");
+
+    assertThat(received).containsExactly("a");
+  }
+
+  @Test
+  public void shouldDisposeOnlyWhenNotHandlingValue() throws Exception {
+    final AtomicReference<LimitedConcurrencyConnection<String>> underTest =
+        new AtomicReference<>();
+
+    underTest.set(
+        new LimitedConcurrencyConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                underTest.get().dispose();
+                received.add(value + (disposed.get() ? " after dispose" : ""));
+              }
+
+              @Override
+              public void dispose() {
+                disposed.set(true);
+              }
+            },
+            null,
+            2));
+
+    underTest.get().accept("a");
+    underTest.get().accept("b");
+
+    assertThat(received).containsExactly("a");
+    assertThat(disposed.get()).isTrue();
+  }
+
+  @Test
+  public void shouldFreeSlotIfRunnerRejectsWorker() throws Exception {
+    final RejectedExecutionException rejected = new RejectedExecutionException("shut down");
+
+    LimitedConcurrencyConnection<String> underTest =
+        new LimitedConcurrencyConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                received.add(value);
+              }
+
+              @Override
+              public void dispose() {
+                disposed.set(true);
+              }
+            },
+            new WorkRunner() {
+              @Override
+              public void post(Runnable runnable) {
+                throw rejected;
+              }
+
+              @Override
+              public void dispose() {}
+            },
+            1);
+
+    assertThatThrownBy(() -> underTest.accept("a")).isSameAs(rejected);
+    underTest.dispose();
+
+    assertThat(received).isEmpty();
+    assertThat(disposed.get()).isTrue();
+  }
+
+  @Test
+  public void shouldRejectInvalidMaxConcurrency() throws Exception {
+    assertThatThrownBy(
+            () ->
+                new LimitedConcurrencyConnection<>(
+                    new Connection<String>() {
+                      @Override
+                      public void accept(String value) {}
+
+                      @Override
+                      public void dispose() {}
+                    },
+                    null,
+                    0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.spotify.mobius.test.SimpleConnection;
+import com.spotify.mobius.test.TestWorkRunner;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoopMetricsTest {
+
+  private TestWorkRunner eventRunner;
+  private TestWorkRunner effectRunner;
+  private MobiusLoop<Integer, String, String> loop;
+  private LoopMetrics metrics;
+
+  @Before
+  public void setUp() throws Exception {
+    eventRunner = new TestWorkRunner();
+    effectRunner = new TestWorkRunner();
+
+    loop =
+        Mobius.<Integer, String, String>loop(
+                (model, event) -> Next.next(model + 1, Effects.effects("effect-" + event)),
+                output ->
+                    new SimpleConnection<String>() {
+                      @Override
+                      public void accept(String value) {}
+                    })
+            .eventRunner(() -> eventRunner)
+            .effectRunner(() -> effectRunner)
+            .startFrom(0);
+    metrics = loop.getMetrics();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    loop.dispose();
+  }
+
+  @Test
+  public void shouldTrackEventQueueDepth() throws Exception {
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+    loop.dispatchEvent("c");
+
+    assertThat(metrics.getDispatchedEventCount()).isEqualTo(3);
+    assertThat(metrics.getEventQueueDepth()).isEqualTo(3);
+
+    eventRunner.runAll();
+
+    assertThat(metrics.getProcessedEventCount()).isEqualTo(3);
+    assertThat(metrics.getEventQueueDepth()).isEqualTo(0);
+    assertThat(metrics.getMaxEventQueueDepth()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldSampleHighWaterMarkWhileProcessing() throws Exception {
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+
+    eventRunner.runAll();
+
+    assertThat(metrics.getMaxEventQueueDepth()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldMeasureEventQueueingDelay() throws Exception {
+    loop.dispatchEvent("a");
+    Thread.sleep(5);
+    eventRunner.runAll();
+
+    assertThat(metrics.getEventQueueingDelaySampleCount()).isEqualTo(1);
+    assertThat(metrics.getMaxEventQueueingDelayNanos())
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    assertThat(metrics.getMeanEventQueueingDelayNanos())
+        .isEqualTo(metrics.getMaxEventQueueingDelayNanos());
+
+    // the next event is sampled again
+    loop.dispatchEvent("b");
+    eventRunner.runAll();
+
+    assertThat(metrics.getEventQueueingDelaySampleCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldTellDispatchesOfSameEventApartWhenMeasuringDelay() throws Exception {
+    LoopMetrics underTest = new LoopMetrics(new UnboundedMessageQueue<>());
+    String event = "a";
+
+    Object sampled = underTest.onEventDispatching("b");
+    Object first = underTest.onEventDispatching(event);
+    underTest.onEventProcessing(sampled);
+    Object second = underTest.onEventDispatching(event);
+
+    // processing the first dispatch of the event must not complete the sample of the second one
+    assertThat(underTest.onEventProcessing(first)).isSameAs(event);
+    assertThat(underTest.getEventQueueingDelaySampleCount()).isEqualTo(1);
+
+    Thread.sleep(5);
+
+    assertThat(underTest.onEventProcessing(second)).isSameAs(event);
+    assertThat(underTest.getEventQueueingDelaySampleCount()).isEqualTo(2);
+    assertThat(underTest.getMaxEventQueueingDelayNanos())
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+  }
+
+  @Test
+  public void shouldNotReuseDelaySampleThatMayStillBeQueuedAfterFailedDispatch() throws Exception {
+    LoopMetrics underTest = new LoopMetrics(new UnboundedMessageQueue<>());
+
+    Object failed = underTest.onEventDispatching("a");
+    underTest.onEventDispatchFailed(failed);
+    Object next = underTest.onEventDispatching("b");
+
+    // the dispatcher may have queued the first event before failing, so it must still be intact
+    assertThat(underTest.onEventProcessing(failed)).isEqualTo("a");
+    assertThat(underTest.onEventProcessing(next)).isEqualTo("b");
+    assertThat(underTest.getEventQueueingDelaySampleCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotCountEventsDiscardedOnDisposeAsWaiting() throws Exception {
+    MobiusLoop<Integer, String, String> bounded =
+        Mobius.<Integer, String, String>loop(
+                (model, event) -> Next.next(model + 1),
+                output ->
+                    new SimpleConnection<String>() {
+                      @Override
+                      public void accept(String value) {}
+                    })
+            .eventRunner(() -> eventRunner)
+            .eventQueue(2, OverflowPolicy.<String>block())
+            .startFrom(0);
+    eventRunner.runAll();
+
+    bounded.dispatchEvent("a");
+    bounded.dispatchEvent("b");
+
+    assertThat(bounded.getMetrics().getEventQueueDepth()).isEqualTo(2);
+
+    bounded.dispose();
+
+    assertThat(bounded.getMetrics().getEventQueueDepth()).isEqualTo(0);
+    assertThat(bounded.getDroppedEventCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotCountEventsDiscardedOnDisposeOfDefaultQueueAsWaiting() throws Exception {
+    eventRunner.runAll();
+
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+
+    assertThat(metrics.getEventQueueDepth()).isEqualTo(2);
+
+    loop.dispose();
+
+    assertThat(metrics.getEventQueueDepth()).isEqualTo(0);
+    assertThat(loop.getDroppedEventCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldTrackEffectsInFlight() throws Exception {
+    loop.dispatchEvent("a");
+    loop.dispatchEvent("b");
+    eventRunner.runAll();
+
+    assertThat(metrics.getDispatchedEffectCount()).isEqualTo(2);
+    assertThat(metrics.getInFlightEffectCount()).isEqualTo(2);
+    assertThat(metrics.getCompletedEffectCount()).isEqualTo(0);
+
+    effectRunner.runAll();
+
+    assertThat(metrics.getInFlightEffectCount()).isEqualTo(0);
+    assertThat(metrics.getCompletedEffectCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCountModelEmissions() throws Exception {
+    loop.dispatchEvent("a");
+    eventRunner.runAll();
+
+    assertThat(metrics.getEmittedModelCount()).isEqualTo(2);
+    assertThat(metrics.getSuppressedModelCount()).isEqualTo(0);
+  }
+}
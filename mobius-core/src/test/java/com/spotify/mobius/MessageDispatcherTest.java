@@ -0,0 +1,265 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.runners.ImmediateWorkRunner;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MessageDispatcherTest {
+
+  private QueueingWorkRunner runner;
+  private RecordingConsumer<String> consumer;
+
+  @Before
+  public void setUp() throws Exception {
+    runner = new QueueingWorkRunner();
+    consumer = new RecordingConsumer<>();
+  }
+
+  @Test
+  public void shouldPostEachMessageSeparatelyByDefault() throws Exception {
+    MessageDispatcher<String> dispatcher = new MessageDispatcher<>(runner, consumer);
+
+    dispatcher.accept("a");
+    dispatcher.accept("b");
+    dispatcher.accept("c");
+
+    assertThat(runner.pending()).isEqualTo(3);
+
+    runner.runAll();
+    consumer.assertValues("a", "b", "c");
+  }
+
+  @Test
+  public void drainingShouldPostOnlyOneTaskForQueuedMessages() throws Exception {
+    MessageDispatcher<String> dispatcher = MessageDispatcher.draining(runner, consumer, 10);
+
+    dispatcher.accept("a");
+    dispatcher.accept("b");
+    dispatcher.accept("c");
+
+    assertThat(runner.pending()).isEqualTo(1);
+
+    runner.runAll();
+    consumer.assertValues("a", "b", "c");
+    assertThat(runner.executed).isEqualTo(1);
+  }
+
+  @Test
+  public void drainingShouldProcessAtMostBatchSizeMessagesPerTask() throws Exception {
+    MessageDispatcher<String> dispatcher = MessageDispatcher.draining(runner, consumer, 2);
+
+    dispatcher.accept("a");
+    dispatcher.accept("b");
+    dispatcher.accept("c");
+    dispatcher.accept("d");
+    dispatcher.accept("e");
+
+    runner.runOne();
+    consumer.assertValues("a", "b");
+    assertThat(runner.pending()).isEqualTo(1);
+
+    runner.runAll();
+    consumer.assertValues("a", "b", "c", "d", "e");
+    assertThat(runner.executed).isEqualTo(3);
+  }
+
+  @Test
+  public void drainingShouldScheduleNewTaskForMessagesAfterQueueWasEmptied() throws Exception {
+    MessageDispatcher<String> dispatcher = MessageDispatcher.draining(runner, consumer, 10);
+
+    dispatcher.accept("a");
+    runner.runAll();
+    dispatcher.accept("b");
+
+    assertThat(runner.pending()).isEqualTo(1);
+
+    runner.runAll();
+    consumer.assertValues("a", "b");
+  }
+
+  @Test
+  public void drainingShouldDeliverMessagesAcceptedWhileDraining() throws Exception {
+    final AtomicReference<MessageDispatcher<String>> dispatcher = new AtomicReference<>();
+
+    dispatcher.set(
+        MessageDispatcher.draining(
+            new ImmediateWorkRunner(),
+            message -> {
+              consumer.accept(message);
+              if (message.equals("a")) {
+                dispatcher.get().accept("nested");
+              }
+            },
+            10));
+
+    dispatcher.get().accept("a");
+    dispatcher.get().accept("b");
+
+    consumer.assertValues("a", "nested", "b");
+  }
+
+  @Test
+  public void drainingShouldSurviveConsumerThrowing() throws Exception {
+    MessageDispatcher<String> dispatcher =
+        MessageDispatcher.draining(
+            runner,
+            message -> {
+              if (message.equals("crash")) {
+                throw new RuntimeException("crashing!");
+              }
+              consumer.accept(message);
+            },
+            10);
+
+    dispatcher.accept("a");
+    dispatcher.accept("crash");
+    dispatcher.accept("b");
+
+    runner.runAll();
+    consumer.assertValues("a", "b");
+  }
+
+  @Test
+  public void drainingShouldDropQueuedMessagesOnDispose() throws Exception {
+    MessageDispatcher<String> dispatcher = MessageDispatcher.draining(runner, consumer, 10);
+
+    dispatcher.accept("a");
+    dispatcher.dispose();
+
+    runner.runAll();
+    consumer.assertValues();
+  }
+
+  @Test
+  public void stopShouldDropPostedMessagesWithoutDisposingRunner() throws Exception {
+    AtomicBoolean runnerDisposed = new AtomicBoolean();
+    QueueingWorkRunner runner =
+        new QueueingWorkRunner() {
+          @Override
+          public void dispose() {
+            runnerDisposed.set(true);
+          }
+        };
+    MessageDispatcher<String> dispatcher = new MessageDispatcher<>(runner, consumer);
+
+    dispatcher.accept("a");
+    dispatcher.stop();
+
+    runner.runAll();
+    consumer.assertValues();
+    assertThat(runnerDisposed.get()).isFalse();
+  }
+
+  @Test
+  public void drainingShouldRejectInvalidBatchSize() throws Exception {
+    assertThatThrownBy(() -> MessageDispatcher.draining(runner, consumer, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void pausedShouldNotDeliverMessagesBeforeStart() throws Exception {
+    MessageDispatcher<String> dispatcher =
+        MessageDispatcher.paused(runner, consumer, new UnboundedMessageQueue<>(), 10);
+
+    dispatcher.accept("a");
+    dispatcher.accept("b");
+
+    assertThat(runner.pending()).isEqualTo(0);
+    consumer.assertValues();
+  }
+
+  @Test
+  public void pausedShouldRunFirstTaskBeforeQueuedMessages() throws Exception {
+    MessageDispatcher<String> dispatcher =
+        MessageDispatcher.paused(runner, consumer, new UnboundedMessageQueue<>(), 10);
+
+    dispatcher.accept("a");
+    dispatcher.start(() -> consumer.accept("first"));
+    dispatcher.accept("b");
+
+    assertThat(runner.pending()).isEqualTo(1);
+
+    runner.runAll();
+    consumer.assertValues("first", "a", "b");
+  }
+
+  @Test
+  public void pausedShouldOnlyBeStartedOnce() throws Exception {
+    MessageDispatcher<String> dispatcher =
+        MessageDispatcher.paused(runner, consumer, new UnboundedMessageQueue<>(), 10);
+
+    dispatcher.start(() -> {});
+
+    assertThatThrownBy(() -> dispatcher.start(() -> {}))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldNotStartUnpausedDispatcher() throws Exception {
+    MessageDispatcher<String> dispatcher = MessageDispatcher.draining(runner, consumer, 10);
+
+    assertThatThrownBy(() -> dispatcher.start(() -> {}))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static class QueueingWorkRunner implements WorkRunner {
+    private final Queue<Runnable> queue = new LinkedList<>();
+    private int executed;
+
+    @Override
+    public void post(Runnable runnable) {
+      queue.add(runnable);
+    }
+
+    int pending() {
+      return queue.size();
+    }
+
+    void runOne() {
+      Runnable runnable = queue.poll();
+      if (runnable != null) {
+        executed++;
+        runnable.run();
+      }
+    }
+
+    void runAll() {
+      while (!queue.isEmpty()) {
+        runOne();
+      }
+    }
+
+    @Override
+    public void dispose() {
+      // leave queued tasks in place, so that tests can check what happens when they run
+    }
+  }
+}
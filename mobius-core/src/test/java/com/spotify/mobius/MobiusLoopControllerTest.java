@@ -30,12 +30,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.ImmediateWorkRunner;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.runners.WorkRunners;
+import com.spotify.mobius.test.TestWorkRunner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -500,6 +502,64 @@ public class MobiusLoopControllerTest {
 
       verify(renderer, never()).accept("init!");
     }
+
+    @Test
+    public void rendersOnlyLatestModelWhenRendererFallsBehind() throws Exception {
+      TestWorkRunner mainThreadRunner = new TestWorkRunner();
+      @SuppressWarnings("unchecked")
+      Connection<String> renderer = mock(Connection.class);
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest = createWithWorkRunner(mainThreadRunner);
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return renderer;
+          });
+      underTest.start();
+
+      consumer.get().accept("a");
+      consumer.get().accept("b");
+      mainThreadRunner.runAll();
+
+      verify(renderer).accept("initab");
+      verify(renderer, never()).accept("init");
+      verify(renderer, never()).accept("inita");
+    }
+
+    @Test
+    public void spacesRendersByMinimumRenderInterval() throws Exception {
+      @SuppressWarnings("unchecked")
+      Connection<String> renderer = mock(Connection.class);
+      AtomicReference<Consumer<String>> consumer = new AtomicReference<>();
+
+      underTest =
+          new MobiusLoopController<>(
+              Mobius.<String, String, String>loop(
+                      (model, event) -> Next.next(model + event), effectHandler)
+                  .eventRunner(WorkRunners::immediate)
+                  .effectRunner(WorkRunners::immediate),
+              "init",
+              mainThreadRunner,
+              200,
+              TimeUnit.MILLISECONDS);
+      underTest.connect(
+          eventConsumer -> {
+            consumer.set(eventConsumer);
+            return renderer;
+          });
+      underTest.start();
+
+      consumer.get().accept("a");
+      consumer.get().accept("b");
+
+      verify(renderer).accept("init");
+      verify(renderer, never()).accept("inita");
+      verify(renderer, never()).accept("initab");
+
+      verify(renderer, timeout(2000)).accept("initab");
+      verify(renderer, never()).accept("inita");
+    }
   }
 
   private static class KnownThreadWorkRunner implements WorkRunner {
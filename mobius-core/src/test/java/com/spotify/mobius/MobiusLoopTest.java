@@ -20,8 +20,10 @@
 package com.spotify.mobius;
 
 import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
 
 import com.google.common.util.concurrent.SettableFuture;
 import com.spotify.mobius.disposables.Disposable;
@@ -32,8 +34,19 @@ import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.test.RecordingModelObserver;
 import com.spotify.mobius.test.SimpleConnection;
 import com.spotify.mobius.test.TestWorkRunner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import org.awaitility.Duration;
 import org.junit.Before;
@@ -261,6 +274,75 @@ public class MobiusLoopTest {
     observer.assertStates("init", "init->effectfrominit");
   }
 
+  @Test
+  public void shouldSendAllEffectsOfANextToBatchConnectionsInOneTask() throws Exception {
+    Init<String, TestEffect> init =
+        new Init<String, TestEffect>() {
+          @Nonnull
+          @Override
+          public First<String, TestEffect> init(String model) {
+            return First.first(
+                model, Effects.<TestEffect, SafeEffect>ordered(effect("i1"), effect("i2")));
+          }
+        };
+
+    Update<String, TestEvent, TestEffect> update =
+        new Update<String, TestEvent, TestEffect>() {
+          @Nonnull
+          @Override
+          public Next<String, TestEffect> update(String model, TestEvent event) {
+            return Next.next(
+                model + "->" + event, Effects.ordered(effect(event + "1"), effect(event + "2")));
+          }
+        };
+
+    mobiusStore = MobiusStore.create(init, update, "init");
+
+    final AtomicInteger posts = new AtomicInteger();
+    WorkRunner countingRunner =
+        new WorkRunner() {
+          @Override
+          public void post(Runnable runnable) {
+            posts.incrementAndGet();
+            runnable.run();
+          }
+
+          @Override
+          public void dispose() {}
+        };
+
+    final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    setupWithEffects(
+        eventConsumer ->
+            new BatchConnection<TestEffect>() {
+              @Override
+              public void acceptBatch(Collection<TestEffect> effects) {
+                List<String> batch = new ArrayList<>();
+                for (TestEffect effect : effects) {
+                  batch.add(effect.toString());
+                }
+                batches.add(batch);
+              }
+
+              @Override
+              public void accept(TestEffect effect) {
+                batches.add(Collections.singletonList(effect.toString()));
+              }
+
+              @Override
+              public void dispose() {}
+            },
+        countingRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("a"));
+
+    assertThat(batches)
+        .containsExactly(
+            Arrays.asList("effecti1", "effecti2"), Arrays.asList("effecta1", "effecta2"));
+    assertThat(posts.get()).isEqualTo(2);
+  }
+
   @Test(expected = IllegalStateException.class)
   public void dispatchingEventsAfterDisposalThrowsException() throws Exception {
     mobiusLoop.dispose();
@@ -284,6 +366,33 @@ public class MobiusLoopTest {
     observer.assertStates("init", "init->active observer");
   }
 
+  @Test
+  public void shouldNotifyObserverWithRunnerOnItsRunner() throws Exception {
+    TestWorkRunner observerRunner = new TestWorkRunner();
+    RecordingModelObserver<String> slowObserver = new RecordingModelObserver<>();
+
+    mobiusLoop.observe(slowObserver, observerRunner);
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    mobiusLoop.dispatchEvent(new TestEvent("second"));
+
+    observer.assertStates("init", "init->first", "init->first->second");
+    slowObserver.assertStates();
+
+    observerRunner.runAll();
+    slowObserver.assertStates("init->first->second");
+  }
+
+  @Test
+  public void shouldNotifySelectorObserverOnlyWhenSliceChanges() throws Exception {
+    RecordingModelObserver<Boolean> sawFirst = new RecordingModelObserver<>();
+
+    mobiusLoop.observe(model -> model.contains("first"), sawFirst);
+    mobiusLoop.dispatchEvent(new TestEvent("first"));
+    mobiusLoop.dispatchEvent(new TestEvent("second"));
+
+    sawFirst.assertStates(false, true);
+  }
+
   @Test
   public void shouldThrowForEventSourceEventsAfterDispose() throws Exception {
     FakeEventSource<TestEvent> eventSource = new FakeEventSource<>();
@@ -320,6 +429,219 @@ public class MobiusLoopTest {
     observer.assertStates("init", "init->good one");
   }
 
+  @Test
+  public void disposeAsyncShouldStopLoopWithoutWaitingForRunners() throws Exception {
+    CountDownLatch releaseRunner = new CountDownLatch(1);
+    WorkRunner blockingRunner =
+        new WorkRunner() {
+          @Override
+          public void post(Runnable runnable) {
+            runnable.run();
+          }
+
+          @Override
+          public void dispose() {
+            try {
+              releaseRunner.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+
+    mobiusLoop =
+        MobiusLoop.create(mobiusStore, effectHandler, eventSource, blockingRunner, immediateRunner);
+    observer = new RecordingModelObserver<>();
+    mobiusLoop.observe(observer);
+
+    Future<Void> disposal = mobiusLoop.disposeAsync();
+
+    assertThat(disposal.isDone()).isFalse();
+    assertThatThrownBy(() -> mobiusLoop.dispatchEvent(new TestEvent("too late")))
+        .isInstanceOf(IllegalStateException.class);
+
+    releaseRunner.countDown();
+    disposal.get(1, TimeUnit.SECONDS);
+
+    observer.assertStates("init");
+  }
+
+  @Test
+  public void disposeAsyncShouldReturnSameFutureWhenCalledAgain() throws Exception {
+    Future<Void> disposal = mobiusLoop.disposeAsync();
+
+    assertThat(mobiusLoop.disposeAsync()).isSameAs(disposal);
+    disposal.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void disposeAsyncShouldReturnCompletedFutureAfterDispose() throws Exception {
+    mobiusLoop.dispose();
+
+    assertThat(mobiusLoop.disposeAsync().isDone()).isTrue();
+  }
+
+  @Test
+  public void disposeAsyncShouldReportFailureToReleaseEffectHandler() throws Exception {
+    setupWithEffects(
+        eventConsumer ->
+            new Connection<TestEffect>() {
+              @Override
+              public void accept(TestEffect effect) {}
+
+              @Override
+              public void dispose() {
+                throw new RuntimeException("can't dispose");
+              }
+            },
+        immediateRunner);
+
+    Future<Void> disposal = mobiusLoop.disposeAsync();
+
+    assertThatThrownBy(() -> disposal.get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasMessageContaining("can't dispose");
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldCompleteWithModelResultingFromEvent() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(mobiusStore, effectHandler, eventSource, eventRunner, immediateRunner);
+
+    mobiusLoop.dispatchEvent(new TestEvent("a"));
+    Future<String> result = mobiusLoop.dispatchAndAwait(new TestEvent("b"));
+    mobiusLoop.dispatchEvent(new TestEvent("c"));
+
+    assertThat(result.isDone()).isFalse();
+
+    eventRunner.runAll();
+
+    assertThat(result.get()).isEqualTo("init->a->b");
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldFailIfUpdateThrows() throws Exception {
+    MobiusStore<String, TestEvent, TestEffect> crashingStore =
+        MobiusStore.create(
+            First::first,
+            (model, event) -> {
+              throw new IllegalArgumentException("bad event");
+            },
+            "init");
+    mobiusLoop =
+        MobiusLoop.create(
+            crashingStore, effectHandler, eventSource, immediateRunner, immediateRunner);
+
+    Future<String> result = mobiusLoop.dispatchAndAwait(new TestEvent("a"));
+
+    assertThatThrownBy(result::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasMessageContaining("bad event");
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldBeCancelledOnDispose() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(mobiusStore, effectHandler, eventSource, eventRunner, immediateRunner);
+
+    Future<String> result = mobiusLoop.dispatchAndAwait(new TestEvent("never processed"));
+    mobiusLoop.dispose();
+
+    assertThat(result.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldThrowAfterDispose() throws Exception {
+    mobiusLoop.dispose();
+
+    assertThatThrownBy(() -> mobiusLoop.dispatchAndAwait(new TestEvent("too late")))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldGiveEachCallItsOwnFuture() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(mobiusStore, effectHandler, eventSource, eventRunner, immediateRunner);
+
+    TestEvent event = new TestEvent("a");
+    Future<String> first = mobiusLoop.dispatchAndAwait(event);
+    mobiusLoop.dispatchEvent(new TestEvent("b"));
+    Future<String> second = mobiusLoop.dispatchAndAwait(event);
+
+    eventRunner.runAll();
+
+    assertThat(first.get()).isEqualTo("init->a");
+    assertThat(second.get()).isEqualTo("init->a->b->a");
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldBeCancelledWhenEventIsDropped() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            eventRunner,
+            immediateRunner,
+            MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+            new BoundedMessageQueue<>(1, OverflowPolicy.<TestEvent>dropNewest()));
+
+    mobiusLoop.dispatchEvent(new TestEvent("a"));
+    Future<String> result = mobiusLoop.dispatchAndAwait(new TestEvent("b"));
+
+    assertThat(result.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldBeCancelledWhenEventIsReplacedByNewerOne() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            eventRunner,
+            immediateRunner,
+            MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+            new BoundedMessageQueue<>(1, OverflowPolicy.<TestEvent>dropOldest()));
+
+    Future<String> result = mobiusLoop.dispatchAndAwait(new TestEvent("a"));
+    mobiusLoop.dispatchEvent(new TestEvent("b"));
+
+    assertThat(result.isCancelled()).isTrue();
+
+    eventRunner.runAll();
+
+    assertThat(mobiusLoop.getMostRecentModel()).isEqualTo("init->b");
+  }
+
+  @Test
+  public void dispatchAndAwaitShouldBeCancelledWhenEventIsConflated() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventSource,
+            eventRunner,
+            immediateRunner,
+            MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+            new ConflatingMessageQueue<TestEvent>(event -> "same key"));
+
+    Future<String> replaced = mobiusLoop.dispatchAndAwait(new TestEvent("a"));
+    Future<String> replacing = mobiusLoop.dispatchAndAwait(new TestEvent("b"));
+
+    assertThat(replaced.isCancelled()).isTrue();
+
+    eventRunner.runAll();
+
+    assertThat(replacing.get()).isEqualTo("init->b");
+  }
+
   @Test
   public void shouldProcessInitBeforeEventsFromEffectHandler() throws Exception {
     mobiusStore = MobiusStore.create(m -> First.first("I" + m), update, "init");
@@ -374,6 +696,112 @@ public class MobiusLoopTest {
     observer.assertStates("Firstinit->1");
   }
 
+  @Test
+  public void shouldNotLoseEventsDispatchedConcurrently() throws Exception {
+    MobiusLoop<Integer, Integer, TestEffect> loop =
+        MobiusLoop.create(
+            MobiusStore.<Integer, Integer, TestEffect>create(
+                m -> First.first(m), (m, e) -> Next.next(m + e), 0),
+            eventConsumer ->
+                new SimpleConnection<TestEffect>() {
+                  @Override
+                  public void accept(TestEffect effect) {
+                    // no effects
+                  }
+                },
+            new FakeEventSource<>(),
+            backgroundRunner,
+            immediateRunner);
+
+    ExecutorService dispatchers = Executors.newFixedThreadPool(4);
+    CountDownLatch start = new CountDownLatch(1);
+
+    for (int thread = 0; thread < 4; thread++) {
+      dispatchers.submit(
+          () -> {
+            start.await();
+            for (int i = 0; i < 500; i++) {
+              loop.dispatchEvent(1);
+            }
+            return null;
+          });
+    }
+
+    start.countDown();
+
+    await().atMost(Duration.FIVE_SECONDS).until(() -> loop.getMostRecentModel(), is(2000));
+
+    dispatchers.shutdown();
+    loop.dispose();
+  }
+
+  @Test
+  public void shouldFailFastForEventsFromEventThreadWhenQueueIsFull() throws Exception {
+    // an effect handler running on the event thread dispatches more events than fit in the queue;
+    // blocking would deadlock the loop, since the event thread is the one that makes room.
+    final List<String> rejected = new CopyOnWriteArrayList<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            eventConsumer ->
+                new SimpleConnection<TestEffect>() {
+                  @Override
+                  public void accept(TestEffect effect) {
+                    for (String name : Arrays.asList("a", "b", "c")) {
+                      try {
+                        eventConsumer.accept(new TestEvent(name));
+                      } catch (EventQueueFullException e) {
+                        rejected.add(e.event().toString());
+                      }
+                    }
+                  }
+                },
+            eventSource,
+            backgroundRunner,
+            immediateRunner,
+            MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+            new BoundedMessageQueue<>(1, OverflowPolicy.<TestEvent>block()));
+
+    observer = new RecordingModelObserver<>();
+    mobiusLoop.observe(observer);
+
+    mobiusLoop.dispatchEvent(new EventWithSafeEffect("1"));
+
+    await().atMost(Duration.ONE_SECOND).until(() -> observer.valueCount() >= 3);
+    observer.assertStates("init", "init->1", "init->1->a");
+    assertThat(rejected).containsExactly("b", "c");
+  }
+
+  @Test
+  public void shouldFailFastForEventsDispatchedBeforeStartWhenQueueIsFull() throws Exception {
+    // an event source that emits synchronously when subscribed runs before the loop has started
+    // processing events, so there is nothing that could make room in the queue.
+    final List<String> rejected = new CopyOnWriteArrayList<>();
+
+    mobiusLoop =
+        MobiusLoop.create(
+            mobiusStore,
+            effectHandler,
+            eventConsumer -> {
+              for (String name : Arrays.asList("a", "b")) {
+                try {
+                  eventConsumer.accept(new TestEvent(name));
+                } catch (EventQueueFullException e) {
+                  rejected.add(e.event().toString());
+                }
+              }
+              return () -> {};
+            },
+            backgroundRunner,
+            immediateRunner,
+            MobiusLoop.DEFAULT_EVENT_BATCH_SIZE,
+            new BoundedMessageQueue<>(1, OverflowPolicy.<TestEvent>block()));
+
+    await().atMost(Duration.ONE_SECOND).until(() -> mobiusLoop.getMostRecentModel(), is("init->a"));
+    assertThat(rejected).containsExactly("b");
+  }
+
   private void setupWithEffects(
       Connectable<TestEffect, TestEvent> effectHandler, WorkRunner effectRunner) {
     observer = new RecordingModelObserver<>();
@@ -384,6 +812,10 @@ public class MobiusLoopTest {
     mobiusLoop.observe(observer);
   }
 
+  private static SafeEffect effect(String id) {
+    return new SafeEffect(id);
+  }
+
   private static class TestEvent {
 
     private final String name;
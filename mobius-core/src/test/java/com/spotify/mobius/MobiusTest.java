@@ -28,9 +28,12 @@ import static org.junit.Assert.assertThat;
 import com.spotify.mobius.disposables.Disposable;
 import com.spotify.mobius.functions.Consumer;
 import com.spotify.mobius.runners.ImmediateWorkRunner;
+import com.spotify.mobius.runners.LoopGroup;
 import com.spotify.mobius.runners.WorkRunner;
 import com.spotify.mobius.test.SimpleConnection;
+import com.spotify.mobius.test.TestWorkRunner;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -118,6 +121,97 @@ public class MobiusTest {
     await().atMost(Duration.ONE_SECOND).until(() -> runner.runCounter.get() == 2);
   }
 
+  @Test
+  public void shouldPermitUsingLoopGroup() throws Exception {
+    LoopGroup loopGroup = LoopGroup.create(1);
+
+    try {
+      loop = Mobius.loop(UPDATE, HANDLER).loopGroup(loopGroup).startFrom(MY_MODEL);
+
+      loop.dispatchEvent(8);
+
+      await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start83"));
+    } finally {
+      loopGroup.dispose();
+    }
+  }
+
+  @Test
+  public void shouldPermitBatchingEvents() throws Exception {
+    loop = Mobius.loop(UPDATE, HANDLER).eventBatchSize(2).startFrom(MY_MODEL);
+
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(5);
+    loop.dispatchEvent(7);
+
+    await().atMost(Duration.ONE_SECOND).until(() -> loop.getMostRecentModel(), is("start157"));
+  }
+
+  @Test
+  public void shouldPermitBoundingEventQueue() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+
+    loop =
+        Mobius.loop(UPDATE, HANDLER)
+            .eventRunner(() -> eventRunner)
+            .eventQueue(2, OverflowPolicy.dropNewest())
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(5);
+    loop.dispatchEvent(7);
+
+    eventRunner.runAll();
+
+    assertThat(loop.getMostRecentModel(), is("start15"));
+    assertThat(loop.getDroppedEventCount(), is(1L));
+  }
+
+  @Test
+  public void shouldPermitConflatingEvents() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+
+    loop =
+        Mobius.loop(UPDATE, HANDLER)
+            .eventRunner(() -> eventRunner)
+            .conflateEvents(event -> event > 5 ? "big" : null)
+            .startFrom(MY_MODEL);
+
+    loop.dispatchEvent(7);
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(8);
+    loop.dispatchEvent(9);
+
+    eventRunner.runAll();
+
+    assertThat(loop.getMostRecentModel(), is("start91"));
+    assertThat(loop.getDroppedEventCount(), is(2L));
+  }
+
+  @Test
+  public void shouldPermitSuppressingUnchangedModels() throws Exception {
+    TestWorkRunner eventRunner = new TestWorkRunner();
+    List<String> models = new ArrayList<>();
+
+    loop =
+        Mobius.<String, Integer, Boolean>loop(
+                (model, event) -> Next.next(event == 0 ? model : model + event), HANDLER)
+            .eventRunner(() -> eventRunner)
+            .distinctModels()
+            .startFrom(MY_MODEL);
+    loop.observe(models::add);
+
+    loop.dispatchEvent(0);
+    loop.dispatchEvent(1);
+    loop.dispatchEvent(0);
+
+    eventRunner.runAll();
+
+    assertThat(models, is(Arrays.asList("start", "start1")));
+    assertThat(loop.getMetrics().getEmittedModelCount(), is(2L));
+    assertThat(loop.getMetrics().getSuppressedModelCount(), is(2L));
+  }
+
   @Test
   public void shouldPermitUsingEventSource() throws Exception {
     TestEventSource eventSource = new TestEventSource();
@@ -0,0 +1,253 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.disposables.Disposable;
+import com.spotify.mobius.functions.Function;
+import com.spotify.mobius.test.RecordingConsumer;
+import com.spotify.mobius.test.TestWorkRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelObserversTest {
+
+  private ModelObservers<Integer> underTest;
+  private RecordingConsumer<Integer> observer;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new ModelObservers<>();
+    observer = new RecordingConsumer<>();
+  }
+
+  @Test
+  public void shouldNotifyObserversOfEachModel() throws Exception {
+    RecordingConsumer<Integer> other = new RecordingConsumer<>();
+    underTest.add(observer, null);
+    underTest.add(other, null);
+
+    underTest.publish(1);
+    underTest.publish(2);
+
+    observer.assertValues(1, 2);
+    other.assertValues(1, 2);
+    assertThat(underTest.latestModel()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldStartNewObserversWithLatestModel() throws Exception {
+    underTest.publish(1);
+    underTest.publish(2);
+
+    underTest.add(observer, null);
+    underTest.publish(3);
+
+    observer.assertValues(2, 3);
+  }
+
+  @Test
+  public void shouldStopNotifyingRemovedObserver() throws Exception {
+    RecordingConsumer<Integer> other = new RecordingConsumer<>();
+    Disposable disposable = underTest.add(observer, null);
+    underTest.add(other, null);
+
+    underTest.publish(1);
+    disposable.dispose();
+    underTest.publish(2);
+
+    observer.assertValues(1);
+    other.assertValues(1, 2);
+  }
+
+  @Test
+  public void shouldNotifyRunnerObserverOnRunnerWithLatestModelOnly() throws Exception {
+    TestWorkRunner runner = new TestWorkRunner();
+    underTest.add(observer, runner);
+
+    underTest.publish(1);
+    underTest.publish(2);
+    underTest.publish(3);
+
+    observer.assertValues();
+
+    runner.runAll();
+    observer.assertValues(3);
+
+    underTest.publish(4);
+    runner.runAll();
+    observer.assertValues(3, 4);
+  }
+
+  @Test
+  public void shouldNotNotifyDisposedRunnerObserver() throws Exception {
+    TestWorkRunner runner = new TestWorkRunner();
+    Disposable disposable = underTest.add(observer, runner);
+
+    underTest.publish(1);
+    disposable.dispose();
+    runner.runAll();
+
+    observer.assertValues();
+  }
+
+  @Test
+  public void shouldRejectObserversAfterClose() throws Exception {
+    underTest.add(observer, null);
+    underTest.close();
+
+    underTest.publish(1);
+
+    observer.assertValues();
+    assertThatThrownBy(() -> underTest.add(new RecordingConsumer<>(), null))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldOnlyNotifySelectorObserverWhenSliceChanges() throws Exception {
+    RecordingConsumer<Boolean> even = new RecordingConsumer<>();
+    underTest.addSelector((Integer model) -> model % 2 == 0, even);
+
+    underTest.publish(1);
+    underTest.publish(3);
+    underTest.publish(4);
+    underTest.publish(6);
+    underTest.publish(7);
+
+    even.assertValues(false, true, false);
+  }
+
+  @Test
+  public void shouldEvaluateSharedSelectorOncePerModel() throws Exception {
+    AtomicInteger evaluations = new AtomicInteger();
+    Function<Integer, Integer> tens =
+        model -> {
+          evaluations.incrementAndGet();
+          return model / 10;
+        };
+    RecordingConsumer<Integer> first = new RecordingConsumer<>();
+    RecordingConsumer<Integer> second = new RecordingConsumer<>();
+    underTest.addSelector(tens, first);
+    underTest.addSelector(tens, second);
+
+    underTest.publish(11);
+    underTest.publish(12);
+    underTest.publish(21);
+
+    assertThat(evaluations.get()).isEqualTo(3);
+    first.assertValues(1, 2);
+    second.assertValues(1, 2);
+  }
+
+  @Test
+  public void shouldStartNewSelectorObserversWithLatestSlice() throws Exception {
+    Function<Integer, Integer> tens = model -> model / 10;
+    RecordingConsumer<Integer> first = new RecordingConsumer<>();
+    RecordingConsumer<Integer> second = new RecordingConsumer<>();
+
+    underTest.publish(11);
+    underTest.addSelector(tens, first);
+    underTest.publish(12);
+    underTest.addSelector(tens, second);
+    underTest.publish(21);
+
+    first.assertValues(1, 2);
+    second.assertValues(1, 2);
+  }
+
+  @Test
+  public void shouldDropSelectorWhenItsLastObserverIsRemoved() throws Exception {
+    AtomicInteger evaluations = new AtomicInteger();
+    Function<Integer, Integer> identity =
+        model -> {
+          evaluations.incrementAndGet();
+          return model;
+        };
+    RecordingConsumer<Integer> first = new RecordingConsumer<>();
+    RecordingConsumer<Integer> second = new RecordingConsumer<>();
+    Disposable firstDisposable = underTest.addSelector(identity, first);
+    Disposable secondDisposable = underTest.addSelector(identity, second);
+
+    underTest.publish(1);
+    firstDisposable.dispose();
+    firstDisposable.dispose();
+    underTest.publish(2);
+    secondDisposable.dispose();
+    underTest.publish(3);
+
+    first.assertValues(1);
+    second.assertValues(1, 2);
+    assertThat(evaluations.get()).isEqualTo(2);
+
+    // a new observer of the same selector starts from scratch, with the latest model
+    RecordingConsumer<Integer> third = new RecordingConsumer<>();
+    underTest.addSelector(identity, third);
+    third.assertValues(3);
+  }
+
+  @Test
+  public void shouldRejectSelectorObserversAfterClose() throws Exception {
+    underTest.close();
+
+    assertThatThrownBy(
+            () -> underTest.addSelector((Integer model) -> model, new RecordingConsumer<>()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldNotifyObserversAddedDuringPublishingOfEachLaterModelInOrder() throws Exception {
+    int models = 20000;
+    List<List<Integer>> received = new ArrayList<>();
+    CountDownLatch publishing = new CountDownLatch(1);
+
+    Thread publisher =
+        new Thread(
+            () -> {
+              publishing.countDown();
+              for (int i = 1; i <= models; i++) {
+                underTest.publish(i);
+              }
+            });
+    publisher.start();
+    publishing.await();
+
+    for (int i = 0; i < 100; i++) {
+      List<Integer> values = new ArrayList<>();
+      received.add(values);
+      underTest.add(values::add, null);
+    }
+    publisher.join();
+
+    for (List<Integer> values : received) {
+      // each observer must see a gap-free, duplicate-free sequence ending with the last model
+      assertThat(values).isNotEmpty();
+      for (int i = 1; i < values.size(); i++) {
+        assertThat(values.get(i)).isEqualTo(values.get(i - 1) + 1);
+      }
+      assertThat(values.get(values.size() - 1)).isEqualTo(models);
+    }
+  }
+}
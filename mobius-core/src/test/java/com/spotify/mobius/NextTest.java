@@ -100,6 +100,12 @@ public class NextTest {
     assertEquals(a, b);
   }
 
+  @Test
+  public void singleEffectFactoriesAreEquivalent() throws Exception {
+    assertEquals(Next.next("m", effects("f")), Next.next("m", "f"));
+    assertEquals(dispatch(effects("f")), dispatch("f"));
+  }
+
   @Test
   public void canMergeInnerEffects() throws Exception {
     Next<String, String> outerNext = Next.next("m", effects("f1", "f2"));
@@ -192,4 +198,10 @@ public class NextTest {
   private Next<?, Number> canInferFromVarargAndEffectsSingle() {
     return Next.next("m", effects((short) 1));
   }
+
+  // Should compile
+  @SuppressWarnings("unused")
+  private Next<?, Number> canInferFromSingleEffect() {
+    return Next.next("m", (short) 1);
+  }
 }
@@ -34,6 +34,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.annotation.Nonnull;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,20 +44,22 @@ public class SafeConnectableTest {
   private RecordingConsumer<String> recordingConsumer;
   private Connection<Integer> safeConsumer;
   private Semaphore blockEffectPerformer;
+  private Semaphore signalEffectHasStarted;
   private Semaphore signalEffectHasBeenPerformed;
   private BlockableConnection blockableConnection;
 
   private SafeConnectable<Integer, String> underTest;
 
   private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private final ExecutorService disposeExecutorService = Executors.newSingleThreadExecutor();
 
   @Before
   public void setUp() throws Exception {
     blockEffectPerformer = new Semaphore(0);
+    signalEffectHasStarted = new Semaphore(0);
     signalEffectHasBeenPerformed = new Semaphore(0);
 
     recordingConsumer = new RecordingConsumer<>();
-    blockableConnection = new BlockableConnection(recordingConsumer);
 
     underTest =
         new SafeConnectable<>(
@@ -64,6 +67,7 @@ public class SafeConnectableTest {
               @Nonnull
               @Override
               public Connection<Integer> connect(Consumer<String> output) {
+                blockableConnection = new BlockableConnection(output);
                 return blockableConnection;
               }
             });
@@ -128,20 +132,28 @@ public class SafeConnectableTest {
               }
             });
 
-    // and the sink is disposed
-    safeConsumer.dispose();
+    // and the sink is disposed while the effect is being performed
+    assertThat(signalEffectHasStarted.tryAcquire(10, TimeUnit.SECONDS), is(true));
+    Future<?> disposeFuture = disposeExecutorService.submit(() -> safeConsumer.dispose());
+
+    // (dispose waits for the effect, so it has discarded events once it is blocked)
+    assertThatThrownBy(() -> disposeFuture.get(100, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
 
     // before the effect gets performed
     // (needs permitting the blocked effect performer to proceed)
     blockEffectPerformer.release();
 
-    // (get the result of the future to ensure the effect has been performed, also propagating
+    // (get the result of the futures to ensure the effect has been performed, also propagating
     // exceptions if any - result should happen quickly, but it's good to have a timeout in case
     // something is messed up)
     effectPerformedFuture.get(10, TimeUnit.SECONDS);
+    disposeFuture.get(10, TimeUnit.SECONDS);
 
-    // then no events are emitted
+    // then no events are emitted, and the connection is disposed after the effect
     recordingConsumer.assertValues();
+    blockableConnection.assertEffects(1);
+    assertThat(blockableConnection.disposed, is(true));
   }
 
   @Test
@@ -175,6 +187,8 @@ public class SafeConnectableTest {
 
     @Override
     public void accept(final Integer effect) {
+      signalEffectHasStarted.release();
+
       if (block) {
         try {
           if (!blockEffectPerformer.tryAcquire(5, TimeUnit.SECONDS)) {
@@ -0,0 +1,181 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerialConnectionTest {
+
+  private List<String> received;
+  private AtomicBoolean disposed;
+
+  @Before
+  public void setUp() throws Exception {
+    received = new CopyOnWriteArrayList<>();
+    disposed = new AtomicBoolean(false);
+  }
+
+  @Test
+  public void shouldDeliverValuesInOrder() throws Exception {
+    SerialConnection<String> underTest = new SerialConnection<>(recording());
+
+    underTest.accept("a");
+    underTest.accept("b");
+    underTest.accept("c");
+
+    assertThat(received).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  public void shouldNeverDeliverValuesConcurrently() throws Exception {
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger maxActive = new AtomicInteger();
+    final AtomicInteger delivered = new AtomicInteger();
+
+    final SerialConnection<Integer> underTest =
+        new SerialConnection<>(
+            new Connection<Integer>() {
+              @Override
+              public void accept(Integer value) {
+                int current = active.incrementAndGet();
+                maxActive.set(Math.max(maxActive.get(), current));
+                Thread.yield();
+                delivered.incrementAndGet();
+                active.decrementAndGet();
+              }
+
+              @Override
+              public void dispose() {}
+            });
+
+    final int threads = 4;
+    final int valuesPerThread = 1000;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    for (int t = 0; t < threads; t++) {
+      executor.submit(
+          () -> {
+            start.await();
+            for (int i = 0; i < valuesPerThread; i++) {
+              underTest.accept(i);
+            }
+            return null;
+          });
+    }
+
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(delivered.get()).isEqualTo(threads * valuesPerThread);
+    assertThat(maxActive.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldDeliverRemainingValuesBeforeRethrowingException() throws Exception {
+    final RuntimeException exception = new RuntimeException("crashing!");
+    final AtomicReference<SerialConnection<String>> underTest = new AtomicReference<>();
+
+    underTest.set(
+        new SerialConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                if (value.equals("crash")) {
+                  // queued behind the value being handled, so delivered by this thread
+                  underTest.get().accept("after");
+                  throw exception;
+                }
+                received.add(value);
+              }
+
+              @Override
+              public void dispose() {}
+            }));
+
+    assertThatThrownBy(() -> underTest.get().accept("crash")).isSameAs(exception);
+    assertThat(received).containsExactly("after");
+  }
+
+  @Test
+  public void shouldDiscardValuesAfterDispose() throws Exception {
+    SerialConnection<String> underTest = new SerialConnection<>(recording());
+
+    underTest.accept("a");
+    underTest.dispose();
+    underTest.accept("b");
+
+    assertThat(received).containsExactly("a");
+    assertThat(disposed.get()).isTrue();
+  }
+
+  @Test
+  public void shouldDisposeOnlyWhenNotHandlingValue() throws Exception {
+    final AtomicReference<SerialConnection<String>> underTest = new AtomicReference<>();
+
+    underTest.set(
+        new SerialConnection<>(
+            new Connection<String>() {
+              @Override
+              public void accept(String value) {
+                underTest.get().dispose();
+                received.add(value + (disposed.get() ? " after dispose" : ""));
+              }
+
+              @Override
+              public void dispose() {
+                disposed.set(true);
+              }
+            }));
+
+    underTest.get().accept("a");
+
+    assertThat(received).containsExactly("a");
+    assertThat(disposed.get()).isTrue();
+  }
+
+  private Connection<String> recording() {
+    return new Connection<String>() {
+      @Override
+      public void accept(String value) {
+        received.add(value);
+      }
+
+      @Override
+      public void dispose() {
+        disposed.set(true);
+      }
+    };
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.spotify.mobius.functions.Consumer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nonnull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SynchronousMobiusLoopTest {
+
+  private List<Thread> effectThreads;
+  private AtomicReference<Consumer<String>> output;
+  private AtomicBoolean connectionDisposed;
+  private SynchronousMobiusLoop.Builder<Integer, String, String> builder;
+
+  @Before
+  public void setUp() throws Exception {
+    effectThreads = new CopyOnWriteArrayList<>();
+    output = new AtomicReference<>();
+    connectionDisposed = new AtomicBoolean();
+
+    // "chain:N" counts down to zero via an effect and an event per step, "defer" leads to an effect
+    // that doesn't respond right away, and "boom" crashes
+    Update<Integer, String, String> update =
+        new Update<Integer, String, String>() {
+          @Nonnull
+          @Override
+          public Next<Integer, String> update(Integer model, String event) {
+            if (event.equals("boom")) {
+              throw new RuntimeException("boom");
+            }
+            if (event.equals("defer")) {
+              return Next.dispatch(effects("defer"));
+            }
+            if (event.startsWith("chain:")) {
+              int remaining = Integer.parseInt(event.substring("chain:".length()));
+              return remaining == 0
+                  ? Next.next(model + 1)
+                  : Next.next(model + 1, "chain:" + (remaining - 1));
+            }
+            return Next.next(model + 1);
+          }
+        };
+
+    Connectable<String, String> effectHandler =
+        new Connectable<String, String>() {
+          @Nonnull
+          @Override
+          public Connection<String> connect(final Consumer<String> eventConsumer) {
+            output.set(eventConsumer);
+            return new Connection<String>() {
+              @Override
+              public void accept(String effect) {
+                effectThreads.add(Thread.currentThread());
+                if (!effect.equals("defer")) {
+                  eventConsumer.accept(effect);
+                }
+              }
+
+              @Override
+              public void dispose() {
+                connectionDisposed.set(true);
+              }
+            };
+          }
+        };
+
+    builder = Mobius.synchronousLoop(update, effectHandler);
+  }
+
+  @Test
+  public void shouldReturnModelOnceEffectsAndTheirEventsHaveBeenProcessed() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    assertThat(loop.runToQuiescence("chain:3")).isEqualTo(4);
+    assertThat(loop.getModel()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldRunInitEffectsBeforeStarting() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop =
+        builder
+            .init(
+                new Init<Integer, String>() {
+                  @Nonnull
+                  @Override
+                  public First<Integer, String> init(Integer model) {
+                    return First.first(model, effects("chain:1"));
+                  }
+                })
+            .startFrom(10);
+
+    assertThat(loop.getModel()).isEqualTo(12);
+  }
+
+  @Test
+  public void shouldRunEffectsOnCallingThread() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    loop.runToQuiescence("chain:5");
+
+    assertThat(effectThreads).hasSize(5).containsOnly(Thread.currentThread());
+  }
+
+  @Test
+  public void shouldNotGrowStackForLongChains() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    assertThat(loop.runToQuiescence("chain:100000")).isEqualTo(100001);
+  }
+
+  @Test
+  public void shouldProcessEventsEmittedFromOtherThreadsOnNextRun() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    assertThat(loop.runToQuiescence("defer")).isEqualTo(0);
+
+    Thread thread = new Thread(() -> output.get().accept("late"));
+    thread.start();
+    thread.join();
+
+    assertThat(loop.getModel()).isEqualTo(0);
+    assertThat(loop.runToQuiescence("now")).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRethrowFailuresAndKeepWorking() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    assertThatThrownBy(() -> loop.runToQuiescence("boom")).hasMessageContaining("boom");
+
+    assertThat(loop.runToQuiescence("ok")).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRejectRunningFromEffectHandler() throws Exception {
+    AtomicReference<SynchronousMobiusLoop<Integer, String, String>> loop = new AtomicReference<>();
+    AtomicReference<Throwable> error = new AtomicReference<>();
+
+    loop.set(
+        Mobius.<Integer, String, String>synchronousLoop(
+                (model, event) -> Next.dispatch(effects(event)),
+                eventConsumer ->
+                    new Connection<String>() {
+                      @Override
+                      public void accept(String effect) {
+                        try {
+                          loop.get().runToQuiescence("nested");
+                        } catch (IllegalStateException e) {
+                          error.set(e);
+                        }
+                      }
+
+                      @Override
+                      public void dispose() {}
+                    })
+            .startFrom(0));
+
+    loop.get().runToQuiescence("outer");
+
+    assertThat(error.get()).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldDisposeEffectHandlerAndRejectEventsAfterDispose() throws Exception {
+    SynchronousMobiusLoop<Integer, String, String> loop = builder.startFrom(0);
+
+    loop.dispose();
+
+    assertThat(connectionDisposed.get()).isTrue();
+    assertThatThrownBy(() -> loop.runToQuiescence("too late"))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> output.get().accept("too late"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UnboundedMessageQueueTest {
+
+  private UnboundedMessageQueue<String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new UnboundedMessageQueue<>();
+  }
+
+  @Test
+  public void shouldDeliverMessagesInOrder() throws Exception {
+    underTest.offer("a", true);
+    underTest.offer("b", true);
+    underTest.offer("c", true);
+
+    assertThat(drain()).containsExactly("a", "b", "c");
+    assertThat(underTest.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepOrderAcrossChunks() throws Exception {
+    List<String> expected = new ArrayList<>();
+
+    for (int i = 0; i < UnboundedMessageQueue.CHUNK_SIZE * 3 + 1; i++) {
+      underTest.offer(Integer.toString(i), true);
+      expected.add(Integer.toString(i));
+
+      // interleave polls, so that the consumer sometimes catches up with the producer
+      if (i % 50 == 0) {
+        assertThat(underTest.poll()).isEqualTo(expected.remove(0));
+      }
+    }
+
+    assertThat(drain()).isEqualTo(expected);
+  }
+
+  @Test
+  public void shouldReportEmptinessAtChunkBoundary() throws Exception {
+    for (int i = 0; i < UnboundedMessageQueue.CHUNK_SIZE; i++) {
+      underTest.offer("x", true);
+    }
+    drain();
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.poll()).isNull();
+
+    underTest.offer("next", true);
+
+    assertThat(underTest.isEmpty()).isFalse();
+    assertThat(underTest.poll()).isEqualTo("next");
+  }
+
+  @Test
+  public void shouldRejectNullMessages() throws Exception {
+    assertThatThrownBy(() -> underTest.offer(null, true))
+        .isInstanceOf(NullPointerException.class);
+  }
+
+  @Test
+  public void shouldDiscardPendingMessagesOnDispose() throws Exception {
+    underTest.offer("a", true);
+    underTest.dispose();
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.poll()).isNull();
+  }
+
+  @Test
+  public void shouldCountMessagesDiscardedOnDisposeAsDropped() throws Exception {
+    for (int i = 0; i < UnboundedMessageQueue.CHUNK_SIZE + 2; i++) {
+      underTest.offer("x", true);
+    }
+    underTest.poll();
+    underTest.poll();
+    underTest.poll();
+
+    underTest.dispose();
+    underTest.offer("too late", true);
+
+    assertThat(underTest.droppedCount()).isEqualTo(UnboundedMessageQueue.CHUNK_SIZE);
+  }
+
+  @Test
+  public void shouldDeliverAllMessagesFromConcurrentProducersInProducerOrder() throws Exception {
+    final int producerCount = 4;
+    final int messagesPerProducer = 20000;
+    ExecutorService producers = Executors.newFixedThreadPool(producerCount);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int p = 0; p < producerCount; p++) {
+      final int producer = p;
+      futures.add(
+          producers.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < messagesPerProducer; i++) {
+                  underTest.offer(producer + ":" + i, true);
+                }
+                return null;
+              }));
+    }
+
+    int[] nextExpected = new int[producerCount];
+    int received = 0;
+    start.countDown();
+
+    while (!allDone(futures) || !underTest.isEmpty()) {
+      String message = underTest.poll();
+
+      if (message != null) {
+        int separator = message.indexOf(':');
+        int producer = Integer.parseInt(message.substring(0, separator));
+        int value = Integer.parseInt(message.substring(separator + 1));
+
+        assertThat(value).isEqualTo(nextExpected[producer]);
+        nextExpected[producer]++;
+        received++;
+      }
+    }
+
+    producers.shutdown();
+
+    assertThat(received).isEqualTo(producerCount * messagesPerProducer);
+  }
+
+  private static boolean allDone(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private List<String> drain() {
+    List<String> messages = new ArrayList<>();
+    String message;
+
+    while ((message = underTest.poll()) != null) {
+      messages.add(message);
+    }
+
+    return messages;
+  }
+}
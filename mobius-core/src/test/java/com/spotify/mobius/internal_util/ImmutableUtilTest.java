@@ -19,12 +19,25 @@
  */
 package com.spotify.mobius.internal_util;
 
+import static com.spotify.mobius.internal_util.ImmutableUtil.immutableSet;
+import static com.spotify.mobius.internal_util.ImmutableUtil.orderedDistinctSet;
+import static com.spotify.mobius.internal_util.ImmutableUtil.orderedSet;
 import static com.spotify.mobius.internal_util.ImmutableUtil.setOf;
 import static com.spotify.mobius.internal_util.ImmutableUtil.unionSets;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.junit.Test;
 
 public class ImmutableUtilTest {
@@ -34,4 +47,130 @@ public class ImmutableUtilTest {
         unionSets(Sets.newHashSet("e1", "e2"), setOf("e3", "e4")),
         equalTo(setOf("e1", "e2", "e3", "e4")));
   }
+
+  @Test
+  public void setOfShouldDropDuplicatesAndKeepOrder() throws Exception {
+    assertThat(setOf("e3", "e1", "e3", "e2", "e1"), contains("e3", "e1", "e2"));
+  }
+
+  @Test
+  public void immutableSetShouldKeepIterationOrder() throws Exception {
+    assertThat(
+        immutableSet(new LinkedHashSet<>(Arrays.asList("e3", "e1", "e2"))),
+        contains("e3", "e1", "e2"));
+  }
+
+  @Test
+  public void immutableSetShouldNotCopyItsOwnSets() throws Exception {
+    Set<String> set = immutableSet(Sets.newHashSet("e1", "e2"));
+
+    assertThat(immutableSet(set), sameInstance(set));
+  }
+
+  @Test
+  public void immutableSetShouldNotBeSensitiveToExternalMutation() throws Exception {
+    Set<String> input = Sets.newHashSet("e1");
+    Set<String> set = immutableSet(input);
+
+    input.add("e2");
+
+    assertThat(set, equalTo((Set<String>) Sets.newHashSet("e1")));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void immutableSetShouldRejectNullItems() throws Exception {
+    immutableSet(Sets.newHashSet("e1", null));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void immutableSetShouldNotBeModifiable() throws Exception {
+    immutableSet(Sets.newHashSet("e1", "e2")).add("e3");
+  }
+
+  @Test
+  public void setsOfAnySizeShouldBehaveLikeHashSets() throws Exception {
+    List<String> items = new ArrayList<>();
+
+    for (int size = 0; size <= 2 * CompactSet.MAX_COMPACT_SIZE; size++) {
+      Set<String> expected = new HashSet<>(items);
+      Set<String> actual = immutableSet(expected);
+
+      assertThat(actual, equalTo(expected));
+      assertThat(expected, equalTo(actual));
+      assertThat(actual.hashCode(), equalTo(expected.hashCode()));
+      assertThat(actual.size(), equalTo(expected.size()));
+      assertThat(actual.toString().length(), equalTo(expected.toString().length()));
+
+      for (String item : items) {
+        assertThat(actual.contains(item), equalTo(true));
+      }
+      assertThat(actual.contains("missing"), equalTo(false));
+      assertThat(actual.contains(null), equalTo(false));
+
+      items.add("e" + size);
+    }
+  }
+
+  @Test
+  public void orderedSetShouldKeepOrderAndDuplicates() throws Exception {
+    assertThat(
+        orderedSet(new Unhashable("e3"), new Unhashable("e1"), new Unhashable("e3")),
+        contains(new Unhashable("e3"), new Unhashable("e1"), new Unhashable("e3")));
+  }
+
+  @Test
+  public void orderedDistinctSetShouldDropDuplicatesWithoutHashing() throws Exception {
+    assertThat(
+        orderedDistinctSet(new Unhashable("e3"), new Unhashable("e1"), new Unhashable("e3")),
+        contains(new Unhashable("e3"), new Unhashable("e1")));
+  }
+
+  @Test
+  public void orderedSetsShouldNotBeCopied() throws Exception {
+    Set<String> set = orderedSet("e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "e10");
+
+    assertThat(immutableSet(set), sameInstance(set));
+  }
+
+  @Test
+  public void orderedSetsWithDuplicatesShouldNotBeDeduplicatedWhenCopied() throws Exception {
+    Set<Unhashable> set = orderedSet(new Unhashable("e1"), new Unhashable("e1"));
+
+    assertThat(immutableSet(set), sameInstance(set));
+  }
+
+  @Test
+  public void orderedDistinctSetsShouldNotBeCopied() throws Exception {
+    Set<String> set =
+        orderedDistinctSet("e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "e10");
+
+    assertThat(immutableSet(set), sameInstance(set));
+  }
+
+  @Test
+  public void immutableSetShouldDropItemsThatOnlyTheInputSetConsidersDistinct() throws Exception {
+    Set<String> identitySet = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+    identitySet.add("e1");
+    identitySet.add(new String("e1"));
+
+    assertThat(immutableSet(identitySet), contains("e1"));
+  }
+
+  private static class Unhashable {
+    private final String value;
+
+    private Unhashable(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Unhashable && ((Unhashable) o).value.equals(value);
+    }
+
+    @Override
+    public int hashCode() {
+      throw new UnsupportedOperationException("should not be hashed");
+    }
+  }
 }
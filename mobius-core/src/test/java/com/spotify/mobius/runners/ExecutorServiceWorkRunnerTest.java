@@ -27,10 +27,12 @@ import static org.junit.Assert.assertThat;
 import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Before;
@@ -90,6 +92,50 @@ public class ExecutorServiceWorkRunnerTest {
     assertThat(output, equalTo(asList(1, 2, 3, 4)));
   }
 
+  @Test
+  public void exceptionsShouldNotReachTheExecutorThread() throws Exception {
+    final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+    final List<Thread> threads = new CopyOnWriteArrayList<>();
+    final CountDownLatch ran = new CountDownLatch(2);
+
+    underTest =
+        new ExecutorServiceWorkRunner(
+            Executors.newSingleThreadExecutor(
+                new ThreadFactory() {
+                  @Override
+                  public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setUncaughtExceptionHandler(
+                        new Thread.UncaughtExceptionHandler() {
+                          @Override
+                          public void uncaughtException(Thread t, Throwable e) {
+                            uncaught.add(e);
+                          }
+                        });
+                    return thread;
+                  }
+                }));
+
+    for (int i = 0; i < 2; i++) {
+      underTest.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              threads.add(Thread.currentThread());
+              ran.countDown();
+              throw new RuntimeException("expected");
+            }
+          });
+    }
+
+    assertThat(ran.await(1, TimeUnit.SECONDS), is(true));
+    underTest.dispose();
+
+    assertThat(uncaught.isEmpty(), is(true));
+    assertThat(threads.size(), is(2));
+    assertThat(threads.get(0), is(threads.get(1)));
+  }
+
   @Test
   public void disposingShouldStopUnderlyingExecutorService() throws Exception {
     ExecutorService service = Executors.newSingleThreadExecutor();
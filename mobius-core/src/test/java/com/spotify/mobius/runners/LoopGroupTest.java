@@ -0,0 +1,152 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.runners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoopGroupTest {
+
+  private LoopGroup underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = LoopGroup.create(2);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.dispose();
+  }
+
+  @Test
+  public void shouldRunAllWorkOfAnEventRunnerInOrderOnOneThread() throws Exception {
+    WorkRunner runner = underTest.nextEventRunner();
+    List<Integer> order = new CopyOnWriteArrayList<>();
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(100);
+
+    for (int i = 0; i < 100; i++) {
+      final int value = i;
+      runner.post(
+          () -> {
+            order.add(value);
+            threads.add(Thread.currentThread());
+            done.countDown();
+          });
+    }
+
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add(i);
+    }
+    assertThat(order).isEqualTo(expected);
+    assertThat(threads).containsOnly(threads.get(0));
+  }
+
+  @Test
+  public void shouldSpreadEventRunnersRoundRobinOverThreads() throws Exception {
+    Thread first = threadOf(underTest.nextEventRunner());
+    Thread second = threadOf(underTest.nextEventRunner());
+    Thread third = threadOf(underTest.nextEventRunner());
+
+    assertThat(first).isNotSameAs(second);
+    assertThat(third).isSameAs(first);
+  }
+
+  @Test
+  public void shouldNotRunWorkPostedAfterRunnerDisposal() throws Exception {
+    WorkRunner disposed = underTest.nextEventRunner();
+    WorkRunner sibling = underTest.nextEventRunner();
+    WorkRunner sameThread = underTest.nextEventRunner();
+    List<String> output = new CopyOnWriteArrayList<>();
+
+    disposed.dispose();
+    disposed.post(() -> output.add("disposed"));
+
+    // the other runners must keep working; the last one shares its thread with the disposed one, so
+    // once it has run, anything posted to the disposed runner would have run, too
+    threadOf(sibling);
+    threadOf(sameThread);
+
+    assertThat(output).isEmpty();
+  }
+
+  @Test
+  public void shouldKeepEventThreadWhenWorkThrows() throws Exception {
+    WorkRunner runner = underTest.nextEventRunner();
+    Thread before = threadOf(runner);
+
+    runner.post(
+        () -> {
+          throw new RuntimeException("expected");
+        });
+
+    assertThat(threadOf(runner)).isSameAs(before);
+  }
+
+  @Test
+  public void shouldRunEffectsOnSharedExecutor() throws Exception {
+    ExecutorService effectExecutor = Executors.newSingleThreadExecutor();
+    underTest.dispose();
+    underTest = LoopGroup.create(1, effectExecutor);
+
+    AtomicReference<Thread> executorThread = new AtomicReference<>();
+    effectExecutor.submit(() -> executorThread.set(Thread.currentThread())).get();
+
+    assertThat(threadOf(underTest.effectRunner())).isSameAs(executorThread.get());
+
+    underTest.dispose();
+    assertThat(effectExecutor.isShutdown()).isTrue();
+  }
+
+  @Test
+  public void shouldRejectInvalidThreadCount() throws Exception {
+    assertThatThrownBy(() -> LoopGroup.create(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Thread threadOf(WorkRunner runner) throws InterruptedException {
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+
+    runner.post(
+        () -> {
+          thread.set(Thread.currentThread());
+          done.countDown();
+        });
+
+    assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+    return thread.get();
+  }
+}
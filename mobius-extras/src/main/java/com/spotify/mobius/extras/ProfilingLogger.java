@@ -0,0 +1,190 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.First;
+import com.spotify.mobius.MobiusLoop.Logger;
+import com.spotify.mobius.Next;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Logger} that profiles the update function of a loop. For each class of events, it
+ * counts calls to update, how many of them returned a model or effects, and keeps a histogram of
+ * how long they took, so that you can find out which events make update slow. Combine it with
+ * other loggers using {@link CompositeLogger}.
+ *
+ * <p>Recording is lock-free, and once an event class has been seen, allocation-free, so the logger
+ * can be left on in production. The same logger may be used by several loops at once, for instance
+ * by passing it to a {@link com.spotify.mobius.MobiusLoop.Builder} that starts more than one loop;
+ * use {@link #snapshot()} to read the profiles from any thread.
+ *
+ * @param <M> The loop's Model type
+ * @param <E> The loop's Event type
+ * @param <F> The loop's Effect type
+ */
+public final class ProfilingLogger<M, E, F> implements Logger<M, E, F> {
+
+  // update is called synchronously between beforeUpdate and afterUpdate, on the loop's event
+  // thread, so start times can be kept per thread even if loops share this logger or a thread. An
+  // update may cause another loop on the same thread to update before it returns, so the start
+  // times are kept in a stack rather than a single slot.
+  private static final ThreadLocal<StartTimes> START_NANOS =
+      new ThreadLocal<StartTimes>() {
+        @Override
+        protected StartTimes initialValue() {
+          return new StartTimes();
+        }
+      };
+
+  private final ConcurrentMap<Class<?>, Stats> stats = new ConcurrentHashMap<>();
+
+  private ProfilingLogger() {}
+
+  public static <M, E, F> ProfilingLogger<M, E, F> create() {
+    return new ProfilingLogger<>();
+  }
+
+  /**
+   * @return the profiles of all event classes seen so far. The counters are read one by one while
+   *     updates may still be recorded, so the counts in the snapshot, even those of a single
+   *     profile, may be from slightly different moments; for instance, the model count may not yet
+   *     include an update that the total count already does.
+   */
+  public List<UpdateProfile> snapshot() {
+    List<UpdateProfile> profiles = new ArrayList<>(stats.size());
+
+    for (Map.Entry<Class<?>, Stats> entry : stats.entrySet()) {
+      profiles.add(entry.getValue().snapshot(entry.getKey()));
+    }
+
+    return profiles;
+  }
+
+  @Override
+  public void beforeInit(M model) {}
+
+  @Override
+  public void afterInit(M model, First<M, F> result) {}
+
+  @Override
+  public void exceptionDuringInit(M model, Throwable exception) {}
+
+  @Override
+  public void beforeUpdate(M model, E event) {
+    START_NANOS.get().push(System.nanoTime());
+  }
+
+  @Override
+  public void afterUpdate(M model, E event, Next<M, F> result) {
+    long elapsed = elapsedSinceStart();
+    Stats eventStats = statsFor(event);
+
+    eventStats.latency.record(elapsed);
+
+    if (result.hasModel()) {
+      eventStats.models.incrementAndGet();
+    }
+    if (result.hasEffects()) {
+      eventStats.effects.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void exceptionDuringUpdate(M model, E event, Throwable exception) {
+    long elapsed = elapsedSinceStart();
+    Stats eventStats = statsFor(event);
+
+    eventStats.latency.record(elapsed);
+    eventStats.failures.incrementAndGet();
+  }
+
+  private static long elapsedSinceStart() {
+    long now = System.nanoTime();
+    StartTimes startTimes = START_NANOS.get();
+
+    // an update without a matching beforeUpdate call is counted, but not timed
+    return startTimes.isEmpty() ? 0 : now - startTimes.pop();
+  }
+
+  private Stats statsFor(E event) {
+    Class<?> eventClass = checkNotNull(event).getClass();
+    Stats eventStats = stats.get(eventClass);
+
+    if (eventStats == null) {
+      Stats newStats = new Stats();
+      eventStats = stats.putIfAbsent(eventClass, newStats);
+
+      if (eventStats == null) {
+        eventStats = newStats;
+      }
+    }
+
+    return eventStats;
+  }
+
+  /** A stack of start times of the updates in progress on a thread. */
+  private static final class StartTimes {
+    private long[] nanos = new long[4];
+    private int depth;
+
+    void push(long startNanos) {
+      if (depth == nanos.length) {
+        nanos = Arrays.copyOf(nanos, depth * 2);
+      }
+
+      nanos[depth++] = startNanos;
+    }
+
+    boolean isEmpty() {
+      return depth == 0;
+    }
+
+    long pop() {
+      return nanos[--depth];
+    }
+  }
+
+  private static final class Stats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong models = new AtomicLong();
+    private final AtomicLong effects = new AtomicLong();
+
+    UpdateProfile snapshot(Class<?> eventClass) {
+      return UpdateProfile.create(
+          eventClass,
+          latency.count(),
+          failures.get(),
+          models.get(),
+          effects.get(),
+          latency.percentile(50),
+          latency.percentile(99),
+          latency.max());
+    }
+  }
+}
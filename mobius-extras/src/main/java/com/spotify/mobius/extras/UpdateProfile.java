@@ -0,0 +1,68 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * A snapshot of how {@link com.spotify.mobius.Update#update(Object, Object)} performed for one
+ * class of events, as recorded by a {@link ProfilingLogger}. Latencies are in nanoseconds, and are
+ * accurate to within 12.5%.
+ */
+@AutoValue
+public abstract class UpdateProfile {
+
+  /** @return the class of the events this profile is for */
+  public abstract Class<?> eventClass();
+
+  /** @return the number of calls to update, including those that threw */
+  public abstract long count();
+
+  /** @return the number of calls to update that threw an exception */
+  public abstract long failureCount();
+
+  /** @return the number of calls to update that returned a new model */
+  public abstract long modelCount();
+
+  /** @return the number of calls to update that returned one or more effects */
+  public abstract long effectsCount();
+
+  /** @return the median duration of a call to update */
+  public abstract long p50Nanos();
+
+  /** @return the 99th percentile duration of a call to update */
+  public abstract long p99Nanos();
+
+  /** @return the longest duration of a call to update */
+  public abstract long maxNanos();
+
+  static UpdateProfile create(
+      Class<?> eventClass,
+      long count,
+      long failureCount,
+      long modelCount,
+      long effectsCount,
+      long p50Nanos,
+      long p99Nanos,
+      long maxNanos) {
+    return new AutoValue_UpdateProfile(
+        eventClass, count, failureCount, modelCount, effectsCount, p50Nanos, p99Nanos, maxNanos);
+  }
+}
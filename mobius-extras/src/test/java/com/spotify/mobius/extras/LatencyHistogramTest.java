@@ -0,0 +1,82 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldReportZeroWhenEmpty() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertThat(histogram.count(), is(0L));
+    assertThat(histogram.percentile(50), is(0L));
+    assertThat(histogram.max(), is(0L));
+  }
+
+  @Test
+  public void shouldCountSmallValuesExactly() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for (long value = 0; value < 8; value++) {
+      histogram.record(value);
+    }
+
+    assertThat(histogram.count(), is(8L));
+    assertThat(histogram.percentile(50), is(3L));
+    assertThat(histogram.percentile(100), is(7L));
+    assertThat(histogram.max(), is(7L));
+  }
+
+  @Test
+  public void shouldReportPercentilesWithinBucketPrecision() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    assertThat(histogram.percentile(50), greaterThanOrEqualTo(500_000L));
+    assertThat(histogram.percentile(50), lessThanOrEqualTo(562_500L));
+    assertThat(histogram.percentile(99), greaterThanOrEqualTo(990_000L));
+    assertThat(histogram.percentile(99), lessThanOrEqualTo(1_000_000L));
+    assertThat(histogram.max(), is(1_000_000L));
+  }
+
+  @Test
+  public void shouldPlaceEveryValueInBucketWhoseBoundsContainIt() throws Exception {
+    long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE};
+
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+
+      assertThat(value, lessThanOrEqualTo(LatencyHistogram.upperBoundOf(bucket)));
+      if (bucket > 0) {
+        assertThat(value, greaterThanOrEqualTo(LatencyHistogram.upperBoundOf(bucket - 1) + 1));
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.extras;
+
+import static com.spotify.mobius.Effects.effects;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.Next;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProfilingLoggerTest {
+
+  private ProfilingLogger<String, Object, String> underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = ProfilingLogger.create();
+  }
+
+  @Test
+  public void shouldHaveNoProfilesInitially() throws Exception {
+    assertThat(underTest.snapshot().isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldProfileUpdatesPerEventClass() throws Exception {
+    update("model", "event", Next.<String, String>next("model2"));
+    update("model2", "event", Next.<String, String>dispatch(effects("effect")));
+    update("model2", 1, Next.<String, String>noChange());
+
+    Map<Class<?>, UpdateProfile> profiles = byEventClass(underTest.snapshot());
+
+    UpdateProfile strings = profiles.get(String.class);
+    assertThat(strings.count(), is(2L));
+    assertThat(strings.modelCount(), is(1L));
+    assertThat(strings.effectsCount(), is(1L));
+    assertThat(strings.failureCount(), is(0L));
+
+    UpdateProfile integers = profiles.get(Integer.class);
+    assertThat(integers.count(), is(1L));
+    assertThat(integers.modelCount(), is(0L));
+    assertThat(integers.effectsCount(), is(0L));
+  }
+
+  @Test
+  public void shouldCountFailedUpdates() throws Exception {
+    underTest.beforeUpdate("model", "event");
+    underTest.exceptionDuringUpdate("model", "event", new RuntimeException("expected"));
+
+    UpdateProfile profile = underTest.snapshot().get(0);
+
+    assertThat(profile.count(), is(1L));
+    assertThat(profile.failureCount(), is(1L));
+  }
+
+  @Test
+  public void shouldRecordDurationOfUpdates() throws Exception {
+    underTest.beforeUpdate("model", "event");
+    Thread.sleep(5);
+    underTest.afterUpdate("model", "event", Next.<String, String>noChange());
+
+    UpdateProfile profile = underTest.snapshot().get(0);
+
+    assertThat(profile.maxNanos(), greaterThanOrEqualTo(5_000_000L));
+    assertThat(profile.p50Nanos(), lessThanOrEqualTo(profile.maxNanos()));
+    assertThat(profile.p99Nanos(), lessThanOrEqualTo(profile.maxNanos()));
+  }
+
+  @Test
+  public void shouldRecordDurationOfNestedUpdates() throws Exception {
+    underTest.beforeUpdate("model", "outer");
+    Thread.sleep(20);
+    update("model", 1, Next.<String, String>noChange());
+    underTest.afterUpdate("model", "outer", Next.<String, String>noChange());
+
+    Map<Class<?>, UpdateProfile> profiles = byEventClass(underTest.snapshot());
+    UpdateProfile outer = profiles.get(String.class);
+    UpdateProfile inner = profiles.get(Integer.class);
+
+    assertThat(outer.maxNanos(), greaterThanOrEqualTo(20_000_000L));
+    assertThat(inner.maxNanos(), lessThan(outer.maxNanos()));
+  }
+
+  private void update(String model, Object event, Next<String, String> result) {
+    underTest.beforeUpdate(model, event);
+    underTest.afterUpdate(model, event, result);
+  }
+
+  private static Map<Class<?>, UpdateProfile> byEventClass(List<UpdateProfile> profiles) {
+    Map<Class<?>, UpdateProfile> result = new HashMap<>();
+    for (UpdateProfile profile : profiles) {
+      result.put(profile.eventClass(), profile);
+    }
+    return result;
+  }
+}
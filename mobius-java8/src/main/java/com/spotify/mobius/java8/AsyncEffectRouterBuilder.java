@@ -0,0 +1,221 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.java8;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.ConnectionException;
+import com.spotify.mobius.EffectHandlerOptions;
+import com.spotify.mobius.EffectRouterBuilder;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.functions.BiConsumer;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link EffectRouterBuilder} that can also route effects to asynchronous functions that return
+ * a {@link CompletionStage}, such as the methods of a non-blocking HTTP or database client.
+ *
+ * <p>An asynchronous function only occupies an effect thread while it starts its work; the event
+ * is emitted from whichever thread completes the stage. This means that a loop can have thousands
+ * of effects in flight while using only a handful of threads, where a blocking {@link
+ * #addFunction(Class, Function)} needs one thread per effect in flight.
+ *
+ * <p>All other methods behave like those of the builder returned by {@link Mobius#effectRouter()},
+ * and return this builder so that calls can be chained freely. Like that builder, instances are
+ * mutable and not thread-safe.
+ */
+public final class AsyncEffectRouterBuilder<F, E> implements EffectRouterBuilder<F, E> {
+
+  // registrations are checked for collisions by this builder as they are added, and replayed onto a
+  // fresh builder by build(), so that asynchronous functions get the error handler that is set when
+  // the router is built, like the other routes do.
+  @Nonnull private final EffectRouterBuilder<F, E> delegate;
+  private final List<Registration<F, E>> registrations = new ArrayList<>();
+
+  private BiConsumer<F, Throwable> errorHandler =
+      (effect, throwable) -> {
+        throw new ConnectionException(effect, throwable);
+      };
+
+  private AsyncEffectRouterBuilder(EffectRouterBuilder<F, E> delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  /**
+   * Create a new builder for an effect router.
+   *
+   * @param <F> the effect type
+   * @param <E> the event type
+   * @return a new builder
+   */
+  @Nonnull
+  public static <F, E> AsyncEffectRouterBuilder<F, E> create() {
+    return new AsyncEffectRouterBuilder<>(Mobius.<F, E>effectRouter());
+  }
+
+  /**
+   * Add a {@link Function} that starts asynchronous work for effects of a given type. The function
+   * will be applied to each incoming effect object that extends the {@code effectClass}, and the
+   * event that the returned stage completes with will be emitted. This is useful for cases when
+   * each effect will always lead to one effect feedback event, and the work to produce it is done
+   * by a non-blocking API.
+   *
+   * <p>The function itself should return quickly, and is invoked with one effect at a time. There
+   * is no limit on how many stages may be pending at once. If a stage completes exceptionally or
+   * with null, the fatal error handler is invoked with the effect and the failure; if the fatal
+   * error handler throws, the exception is passed to the uncaught exception handler of the thread
+   * that completed the stage. Stages that are still pending when the connection is disposed are
+   * cancelled, if they support it, and their results are ignored.
+   *
+   * <p>Adding handlers for two effect classes where one is a super-class of the other is considered
+   * a collision and is not allowed. Registering the same class twice is also considered a
+   * collision.
+   *
+   * @param effectClass the effect class to handle
+   * @param function the effect handler for the given effect class
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addAsyncFunction(
+      Class<G> effectClass, Function<G, ? extends CompletionStage<E>> function) {
+    return addAsyncFunction(effectClass, function, EffectHandlerOptions.serial());
+  }
+
+  /**
+   * Like {@link #addAsyncFunction(Class, Function)}, with options that control how the function is
+   * invoked. The options only apply to starting the work; completions are never limited.
+   *
+   * @param effectClass the effect class to handle
+   * @param function the effect handler for the given effect class
+   * @param options the options for the handler
+   * @param <G> the effect class as a type parameter
+   * @return this builder
+   * @throws IllegalArgumentException if there is a handler collision
+   */
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addAsyncFunction(
+      Class<G> effectClass,
+      Function<G, ? extends CompletionStage<E>> function,
+      EffectHandlerOptions options) {
+    checkNotNull(function);
+
+    return register(
+        (builder, onError) ->
+            builder.addConnectable(
+                effectClass, new AsyncFunctionConnectable<F, G, E>(function, onError), options));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addRunnable(
+      Class<G> effectClass, Runnable action) {
+    return register((builder, onError) -> builder.addRunnable(effectClass, action));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addRunnable(
+      Class<G> effectClass, Runnable action, EffectHandlerOptions options) {
+    return register((builder, onError) -> builder.addRunnable(effectClass, action, options));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addConsumer(
+      Class<G> effectClass, Consumer<G> consumer) {
+    return register((builder, onError) -> builder.addConsumer(effectClass, consumer));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addConsumer(
+      Class<G> effectClass, Consumer<G> consumer, EffectHandlerOptions options) {
+    return register((builder, onError) -> builder.addConsumer(effectClass, consumer, options));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addBatchConsumer(
+      Class<G> effectClass,
+      int maxBatch,
+      long maxDelayMs,
+      ScheduledExecutorService scheduler,
+      Consumer<List<G>> consumer) {
+    return register(
+        (builder, onError) ->
+            builder.addBatchConsumer(effectClass, maxBatch, maxDelayMs, scheduler, consumer));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addFunction(
+      Class<G> effectClass, Function<G, E> function) {
+    return register((builder, onError) -> builder.addFunction(effectClass, function));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addFunction(
+      Class<G> effectClass, Function<G, E> function, EffectHandlerOptions options) {
+    return register((builder, onError) -> builder.addFunction(effectClass, function, options));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addConnectable(
+      Class<G> effectClass, Connectable<G, E> connectable) {
+    return register((builder, onError) -> builder.addConnectable(effectClass, connectable));
+  }
+
+  @Override
+  public <G extends F> AsyncEffectRouterBuilder<F, E> addConnectable(
+      Class<G> effectClass, Connectable<G, E> connectable, EffectHandlerOptions options) {
+    return register(
+        (builder, onError) -> builder.addConnectable(effectClass, connectable, options));
+  }
+
+  @Override
+  public AsyncEffectRouterBuilder<F, E> withFatalErrorHandler(
+      BiConsumer<F, Throwable> errorHandler) {
+    this.errorHandler = checkNotNull(errorHandler);
+    return this;
+  }
+
+  @Override
+  public Connectable<F, E> build() {
+    EffectRouterBuilder<F, E> builder = Mobius.effectRouter();
+
+    for (Registration<F, E> registration : registrations) {
+      registration.addTo(builder, errorHandler);
+    }
+
+    return builder.withFatalErrorHandler(errorHandler).build();
+  }
+
+  private AsyncEffectRouterBuilder<F, E> register(Registration<F, E> registration) {
+    registration.addTo(delegate, errorHandler);
+    registrations.add(registration);
+    return this;
+  }
+
+  /** Adds a route to a builder, given the error handler of the router being built. */
+  private interface Registration<F, E> {
+    void addTo(EffectRouterBuilder<F, E> builder, BiConsumer<F, Throwable> errorHandler);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.java8;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.functions.BiConsumer;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.functions.Function;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Connectable} that applies an asynchronous function to each effect, and emits the event
+ * that the returned {@link CompletionStage} completes with.
+ *
+ * <p>No thread is held while a stage is pending; the event is emitted from whichever thread
+ * completes the stage. Stages that fail, or that complete with null, are reported to the error
+ * handler. When a connection is disposed, completions that haven't happened yet are ignored, and
+ * any stage that is also a {@link Future} is cancelled.
+ */
+class AsyncFunctionConnectable<F, G extends F, E> implements Connectable<G, E> {
+
+  @Nonnull private final Function<G, ? extends CompletionStage<E>> function;
+  @Nonnull private final BiConsumer<F, Throwable> errorHandler;
+
+  AsyncFunctionConnectable(
+      Function<G, ? extends CompletionStage<E>> function, BiConsumer<F, Throwable> errorHandler) {
+    this.function = checkNotNull(function);
+    this.errorHandler = checkNotNull(errorHandler);
+  }
+
+  @Nonnull
+  @Override
+  public Connection<G> connect(Consumer<E> output) {
+    return new AsyncFunctionConnection(checkNotNull(output));
+  }
+
+  private class AsyncFunctionConnection implements Connection<G> {
+    private final Consumer<E> output;
+    private final Set<Future<?>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean disposed;
+
+    private AsyncFunctionConnection(Consumer<E> output) {
+      this.output = output;
+    }
+
+    @Override
+    public void accept(final G effect) {
+      if (disposed) return;
+
+      CompletionStage<E> stage = checkNotNull(function.apply(effect));
+      final Future<?> future = stage instanceof Future ? (Future<?>) stage : null;
+
+      if (future != null) {
+        pending.add(future);
+
+        // dispose() may have missed the future if it ran while we were adding it
+        if (disposed) {
+          future.cancel(false);
+        }
+      }
+
+      stage.whenComplete(
+          (event, throwable) -> {
+            if (future != null) {
+              pending.remove(future);
+            }
+
+            if (disposed) return;
+
+            if (throwable != null) {
+              reportError(effect, unwrap(throwable));
+            } else if (event == null) {
+              reportError(effect, new NullPointerException("async function completed with null"));
+            } else {
+              try {
+                output.accept(event);
+              } catch (Throwable t) {
+                reportError(effect, t);
+              }
+            }
+          });
+    }
+
+    @Override
+    public void dispose() {
+      disposed = true;
+
+      for (Future<?> future : pending) {
+        future.cancel(false);
+      }
+      pending.clear();
+    }
+  }
+
+  private void reportError(G effect, Throwable throwable) {
+    try {
+      errorHandler.accept(effect, throwable);
+    } catch (Throwable t) {
+      // nobody is waiting for the result of the completion callback, so make sure the failure
+      // isn't silently dropped by the stage it would otherwise end up in
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    if (throwable instanceof CompletionException && throwable.getCause() != null) {
+      return throwable.getCause();
+    }
+    return throwable;
+  }
+}
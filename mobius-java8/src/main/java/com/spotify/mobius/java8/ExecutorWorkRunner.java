@@ -0,0 +1,71 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.java8;
+
+import static com.spotify.mobius.internal_util.Preconditions.checkNotNull;
+
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WorkRunner} that hands its work to an {@link Executor}, for instance {@link
+ * java.util.concurrent.ForkJoinPool#commonPool()} or the executor of an asynchronous client
+ * library.
+ *
+ * <p>The runner doesn't own the executor. Disposing it stops further work from being run,
+ * including work that has been posted but hasn't started yet, but leaves the executor running. Use
+ * {@link com.spotify.mobius.runners.WorkRunners#from(java.util.concurrent.ExecutorService)} if the
+ * executor should be shut down together with the runner.
+ */
+public final class ExecutorWorkRunner implements WorkRunner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorWorkRunner.class);
+
+  @Nonnull private final Executor executor;
+  private volatile boolean disposed;
+
+  public ExecutorWorkRunner(Executor executor) {
+    this.executor = checkNotNull(executor);
+  }
+
+  @Override
+  public void post(final Runnable runnable) {
+    if (disposed) return;
+
+    executor.execute(
+        () -> {
+          if (disposed) return;
+
+          try {
+            runnable.run();
+          } catch (Throwable t) {
+            LOGGER.error("Runnable posted to ExecutorWorkRunner threw an exception", t);
+          }
+        });
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+  }
+}
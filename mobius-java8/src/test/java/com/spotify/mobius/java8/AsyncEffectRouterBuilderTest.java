@@ -0,0 +1,192 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.java8;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.Connection;
+import com.spotify.mobius.EffectHandlerOptions;
+import com.spotify.mobius.test.RecordingConsumer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncEffectRouterBuilderTest {
+
+  private List<CompletableFuture<String>> futures;
+  private List<Throwable> errors;
+  private RecordingConsumer<String> events;
+  private Connection<Object> connection;
+
+  @Before
+  public void setUp() throws Exception {
+    futures = new CopyOnWriteArrayList<>();
+    errors = new CopyOnWriteArrayList<>();
+    events = new RecordingConsumer<>();
+
+    connection =
+        AsyncEffectRouterBuilder.<Object, String>create()
+            .addAsyncFunction(
+                Integer.class,
+                effect -> {
+                  CompletableFuture<String> future = new CompletableFuture<>();
+                  futures.add(future);
+                  return future;
+                })
+            .addFunction(String.class, effect -> "sync " + effect)
+            .withFatalErrorHandler((effect, throwable) -> errors.add(throwable))
+            .build()
+            .connect(events);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    connection.dispose();
+  }
+
+  @Test
+  public void shouldEmitEventWhenStageCompletes() throws Exception {
+    connection.accept(1);
+
+    events.assertValues();
+
+    futures.get(0).complete("one");
+
+    events.assertValues("one");
+  }
+
+  @Test
+  public void shouldKeepManyEffectsInFlightWithoutBlocking() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      connection.accept(i);
+    }
+
+    assertThat(futures.size(), is(1000));
+    events.assertValues();
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 999; i >= 0; i--) {
+      futures.get(i).complete("event " + i);
+      expected.add("event " + i);
+    }
+
+    events.assertValues(expected.toArray(new String[0]));
+  }
+
+  @Test
+  public void shouldStillSupportSynchronousHandlers() throws Exception {
+    connection.accept("hi");
+
+    events.assertValues("sync hi");
+  }
+
+  @Test
+  public void shouldReportFailedStagesToFatalErrorHandler() throws Exception {
+    RuntimeException failure = new RuntimeException("expected");
+    connection.accept(1);
+
+    futures.get(0).completeExceptionally(failure);
+
+    events.assertValues();
+    assertThat(errors, contains(failure));
+  }
+
+  @Test
+  public void shouldReportStagesCompletingWithNullToFatalErrorHandler() throws Exception {
+    connection.accept(1);
+
+    futures.get(0).complete(null);
+
+    events.assertValues();
+    assertThat(errors.size(), is(1));
+    assertThat(errors.get(0), instanceOf(NullPointerException.class));
+  }
+
+  @Test
+  public void shouldUseErrorHandlerFromWhenRouterWasBuilt() throws Exception {
+    RuntimeException failure = new RuntimeException("expected");
+    List<Throwable> builtErrors = new CopyOnWriteArrayList<>();
+    List<Throwable> laterErrors = new CopyOnWriteArrayList<>();
+
+    AsyncEffectRouterBuilder<Object, String> builder =
+        AsyncEffectRouterBuilder.<Object, String>create()
+            .addAsyncFunction(
+                Integer.class,
+                effect -> {
+                  CompletableFuture<String> future = new CompletableFuture<>();
+                  future.completeExceptionally(failure);
+                  return future;
+                })
+            .withFatalErrorHandler((effect, throwable) -> builtErrors.add(throwable));
+
+    Connection<Object> built = builder.build().connect(new RecordingConsumer<>());
+    builder.withFatalErrorHandler((effect, throwable) -> laterErrors.add(throwable));
+    Connection<Object> rebuilt = builder.build().connect(new RecordingConsumer<>());
+
+    built.accept(1);
+    rebuilt.accept(2);
+
+    assertThat(builtErrors, contains(failure));
+    assertThat(laterErrors, contains(failure));
+
+    built.dispose();
+    rebuilt.dispose();
+  }
+
+  @Test
+  public void shouldCancelPendingStagesAndIgnoreCompletionsAfterDispose() throws Exception {
+    connection.accept(1);
+    connection.accept(2);
+    futures.get(1).complete("two");
+
+    connection.dispose();
+
+    assertThat(futures.get(0).isCancelled(), is(true));
+    futures.get(0).complete("one");
+    events.assertValues("two");
+    assertThat(errors.size(), is(0));
+  }
+
+  @Test
+  public void shouldAcceptHandlerOptions() throws Exception {
+    RecordingConsumer<String> output = new RecordingConsumer<>();
+
+    Connection<Object> threadSafe =
+        AsyncEffectRouterBuilder.<Object, String>create()
+            .addAsyncFunction(
+                Integer.class,
+                effect -> CompletableFuture.completedFuture("done " + effect),
+                EffectHandlerOptions.threadSafe())
+            .build()
+            .connect(output);
+
+    threadSafe.accept(5);
+
+    output.assertValues("done 5");
+    threadSafe.dispose();
+  }
+}
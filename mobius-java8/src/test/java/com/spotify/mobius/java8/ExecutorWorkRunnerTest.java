@@ -0,0 +1,97 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.java8;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class ExecutorWorkRunnerTest {
+
+  @Test
+  public void shouldRunWorkOnExecutor() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicReference<Thread> executorThread = new AtomicReference<>();
+    executor.submit(() -> executorThread.set(Thread.currentThread())).get();
+
+    AtomicReference<Thread> workThread = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+
+    new ExecutorWorkRunner(executor)
+        .post(
+            () -> {
+              workThread.set(Thread.currentThread());
+              done.countDown();
+            });
+
+    assertThat(done.await(1, TimeUnit.SECONDS), is(true));
+    assertThat(workThread.get(), sameInstance(executorThread.get()));
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldNotRunWorkAfterDispose() throws Exception {
+    Queue<Runnable> queue = new LinkedList<>();
+    ExecutorWorkRunner runner = new ExecutorWorkRunner(queue::add);
+    AtomicBoolean ran = new AtomicBoolean();
+
+    runner.post(() -> ran.set(true));
+    runner.dispose();
+    runner.post(() -> ran.set(true));
+
+    assertThat(queue.size(), is(1));
+    queue.poll().run();
+    assertThat(ran.get(), is(false));
+  }
+
+  @Test
+  public void shouldKeepExceptionsFromWorkAwayFromExecutor() throws Exception {
+    Queue<Runnable> queue = new LinkedList<>();
+    ExecutorWorkRunner runner = new ExecutorWorkRunner(queue::add);
+
+    runner.post(
+        () -> {
+          throw new RuntimeException("expected");
+        });
+
+    // throws if the exception isn't caught by the runner
+    queue.poll().run();
+  }
+
+  @Test
+  public void shouldNotShutDownExecutorOnDispose() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    new ExecutorWorkRunner(executor).dispose();
+
+    assertThat(executor.isShutdown(), is(false));
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.loom;
+
+import static com.spotify.mobius.Effects.effects;
+
+import com.spotify.mobius.Connectable;
+import com.spotify.mobius.EffectHandlerOptions;
+import com.spotify.mobius.Mobius;
+import com.spotify.mobius.MobiusLoop;
+import com.spotify.mobius.Next;
+import com.spotify.mobius.Update;
+import com.spotify.mobius.functions.Consumer;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a cached thread pool with virtual threads as the effect runner, when every effect blocks
+ * its thread for {@code effectMillis}. Each operation dispatches {@code effects} requests at once
+ * and waits for all the responses, so the ideal time per operation is {@code effectMillis}; the
+ * excess is the cost of running that many blocking effects concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingEffectsBenchmark {
+
+  public enum Runner {
+    CACHED_THREAD_POOL {
+      @Override
+      WorkRunner create() {
+        return WorkRunners.cachedThreadPool();
+      }
+    },
+    VIRTUAL_THREAD_PER_TASK {
+      @Override
+      WorkRunner create() {
+        return LoomWorkRunners.virtualThreadPerTask();
+      }
+    };
+
+    abstract WorkRunner create();
+  }
+
+  enum Event {
+    REQUEST,
+    RESPONSE
+  }
+
+  static final class Block {
+    static final Block INSTANCE = new Block();
+
+    private Block() {}
+  }
+
+  private static final Update<Long, Event, Object> UPDATE =
+      (model, event) -> {
+        switch (event) {
+          case REQUEST:
+            return Next.dispatch(effects(Block.INSTANCE));
+          case RESPONSE:
+            return Next.next(model + 1);
+          default:
+            throw new IllegalArgumentException(event.toString());
+        }
+      };
+
+  @Param public Runner runner;
+
+  @Param({"100", "1000", "10000"})
+  public int effects;
+
+  @Param({"10"})
+  public long effectMillis;
+
+  private MobiusLoop<Long, Event, Object> loop;
+  private ResponseCount responses;
+  private long requested;
+
+  @Setup
+  public void setUp() {
+    final WorkRunner effectRunner = runner.create();
+
+    Connectable<Object, Event> router =
+        Mobius.<Object, Event>effectRouter()
+            .addFunction(
+                Block.class,
+                block -> {
+                  try {
+                    Thread.sleep(effectMillis);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  return Event.RESPONSE;
+                },
+                EffectHandlerOptions.threadSafe())
+            .build();
+
+    loop = Mobius.loop(UPDATE, router).effectRunner(() -> effectRunner).startFrom(0L);
+
+    responses = new ResponseCount();
+    loop.observe(responses);
+    requested = 0;
+  }
+
+  @TearDown
+  public void tearDown() {
+    loop.dispose();
+  }
+
+  @Benchmark
+  public void handleBlockingEffects() throws InterruptedException {
+    for (int i = 0; i < effects; i++) {
+      loop.dispatchEvent(Event.REQUEST);
+    }
+
+    requested += effects;
+    responses.awaitAtLeast(requested);
+  }
+
+  /** Lets the benchmark thread sleep until the loop has counted enough responses. */
+  private static final class ResponseCount implements Consumer<Long> {
+    private long latest;
+
+    @Override
+    public synchronized void accept(Long model) {
+      latest = model;
+      notifyAll();
+    }
+
+    synchronized void awaitAtLeast(long value) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+      while (latest < value) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new IllegalStateException(
+              "timed out waiting for model " + value + ", latest was " + latest);
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+    }
+  }
+}
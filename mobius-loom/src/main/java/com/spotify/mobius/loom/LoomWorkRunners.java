@@ -0,0 +1,76 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.loom;
+
+import com.spotify.mobius.runners.LoopGroup;
+import com.spotify.mobius.runners.WorkRunner;
+import com.spotify.mobius.runners.WorkRunners;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link WorkRunner}s and {@link LoopGroup}s that run effects on virtual threads.
+ *
+ * <p>A virtual thread that blocks, for instance on I/O or in {@link Thread#sleep(long)}, releases
+ * the platform thread it was running on, so a handler written in the plain blocking style of
+ * {@link com.spotify.mobius.EffectRouterBuilder#addFunction(Class,
+ * com.spotify.mobius.functions.Function)} can have many effects in flight without needing a
+ * platform thread for each. For this to help, the handler must be registered with options that let
+ * it run concurrently, such as {@link com.spotify.mobius.EffectHandlerOptions#threadSafe()}. Use
+ * {@code BlockingEffectsBenchmark} to measure whether it does for a given workload.
+ *
+ * <p>Events should still be processed on platform threads: event processing doesn't block, and
+ * the order of events must be kept, so there is nothing to gain from running it on virtual
+ * threads.
+ */
+public final class LoomWorkRunners {
+  private LoomWorkRunners() {}
+
+  /**
+   * Create a runner that starts a new virtual thread for each runnable posted to it. Disposing the
+   * runner interrupts any runnables still running.
+   *
+   * @return a new {@link WorkRunner} for effects
+   */
+  @Nonnull
+  public static WorkRunner virtualThreadPerTask() {
+    return WorkRunners.from(newVirtualThreadPerTaskExecutor());
+  }
+
+  /**
+   * Create a {@link LoopGroup} with the given number of event threads, where the effects of all
+   * loops in the group run on virtual threads.
+   *
+   * @param eventThreads the number of event threads in the group
+   * @return a new loop group
+   * @throws IllegalArgumentException if eventThreads is less than 1
+   */
+  @Nonnull
+  public static LoopGroup loopGroup(int eventThreads) {
+    return LoopGroup.create(eventThreads, newVirtualThreadPerTaskExecutor());
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    ThreadFactory threadFactory = Thread.ofVirtual().name("mobius-virtual-", 1).factory();
+    return Executors.newThreadPerTaskExecutor(threadFactory);
+  }
+}
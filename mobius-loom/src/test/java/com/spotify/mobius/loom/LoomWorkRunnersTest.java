@@ -0,0 +1,115 @@
+/*
+ * -\-\-
+ * Mobius
+ * --
+ * Copyright (c) 2017-2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.mobius.loom;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.mobius.runners.LoopGroup;
+import com.spotify.mobius.runners.WorkRunner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class LoomWorkRunnersTest {
+
+  @Test
+  public void shouldRunEffectsOnVirtualThreads() throws Exception {
+    WorkRunner runner = LoomWorkRunners.virtualThreadPerTask();
+
+    assertThat(threadOf(runner).isVirtual(), is(true));
+    runner.dispose();
+  }
+
+  @Test
+  public void shouldRunManyBlockingTasksConcurrently() throws Exception {
+    WorkRunner runner = LoomWorkRunners.virtualThreadPerTask();
+    int tasks = 10_000;
+    CountDownLatch started = new CountDownLatch(tasks);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(tasks);
+
+    for (int i = 0; i < tasks; i++) {
+      runner.post(
+          () -> {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            done.countDown();
+          });
+    }
+
+    // all tasks must be blocked at the same time, which would take 10000 platform threads
+    assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+    release.countDown();
+    assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+    runner.dispose();
+  }
+
+  @Test
+  public void shouldInterruptRunningTasksOnDispose() throws Exception {
+    WorkRunner runner = LoomWorkRunners.virtualThreadPerTask();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+
+    runner.post(
+        () -> {
+          started.countDown();
+          try {
+            Thread.sleep(10_000);
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+          }
+        });
+
+    assertThat(started.await(1, TimeUnit.SECONDS), is(true));
+    runner.dispose();
+    assertThat(interrupted.await(1, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void loopGroupShouldRunEventsOnPlatformThreadsAndEffectsOnVirtualThreads()
+      throws Exception {
+    LoopGroup group = LoomWorkRunners.loopGroup(2);
+
+    assertThat(threadOf(group.nextEventRunner()).isVirtual(), is(false));
+    assertThat(threadOf(group.effectRunner()).isVirtual(), is(true));
+
+    group.dispose();
+  }
+
+  private static Thread threadOf(WorkRunner runner) throws InterruptedException {
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+
+    runner.post(
+        () -> {
+          thread.set(Thread.currentThread());
+          done.countDown();
+        });
+
+    assertThat(done.await(1, TimeUnit.SECONDS), is(true));
+    return thread.get();
+  }
+}